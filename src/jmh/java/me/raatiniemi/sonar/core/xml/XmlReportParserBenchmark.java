@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import me.raatiniemi.sonar.core.ReportParser;
+import me.raatiniemi.sonar.core.ReportReadMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.annotation.Nonnull;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare parsing a large report by handing the file to the document builder, i.e. the
+ * previous behaviour, with each of the read modes and with the {@link XmlTokenizer}.
+ * <p>
+ * Run using {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class XmlReportParserBenchmark {
+    private static final String FILE = "FILE";
+    private static final String TOKENIZER = "TOKENIZER";
+
+    @Param({"100000"})
+    public int numberOfFiles;
+
+    @Param({FILE, "STREAM", "BUFFERED", "MAPPED", TOKENIZER})
+    public String input;
+
+    private File reportFile;
+    private DocumentBuilder documentBuilder;
+    private ReportParser<Integer> reportParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        reportFile = File.createTempFile("report", ".xml");
+        try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<coverage>\n");
+            for (int i = 0; i < numberOfFiles; i++) {
+                writer.write("    <file filename=\"src/module-" + i % 100 + "/file-" + i + ".m\">\n");
+                writer.write("        <line number=\"" + i + "\" hits=\"" + i % 7 + "\" branch=\"false\" />\n");
+                writer.write("    </file>\n");
+            }
+            writer.write("</coverage>\n");
+        }
+
+        documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        if (TOKENIZER.equals(input)) {
+            reportParser = new CountingTokenReportParser();
+        } else if (!FILE.equals(input)) {
+            reportParser = new CountingReportParser(documentBuilder, ReportReadMode.valueOf(input));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(reportFile.toPath());
+    }
+
+    @Benchmark
+    public int parse() throws IOException, SAXException {
+        if (null == reportParser) {
+            return countFiles(documentBuilder.parse(reportFile));
+        }
+
+        return reportParser.parse(reportFile)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    private static int countFiles(@Nonnull Document document) {
+        return document.getElementsByTagName("file").getLength();
+    }
+
+    private static final class CountingReportParser extends XmlReportParser<Integer> {
+        private CountingReportParser(@Nonnull DocumentBuilder documentBuilder, @Nonnull ReportReadMode readMode) {
+            super(documentBuilder, readMode);
+        }
+
+        @Nonnull
+        @Override
+        protected Integer parse(@Nonnull Document document) {
+            return countFiles(document);
+        }
+    }
+
+    private static final class CountingTokenReportParser extends XmlTokenReportParser<Integer> {
+        @Nonnull
+        @Override
+        protected Integer parse(@Nonnull XmlTokenizer tokenizer) throws IOException {
+            int numberOfFiles = 0;
+            while (tokenizer.nextElement("file")) {
+                numberOfFiles++;
+            }
+
+            return numberOfFiles;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Match the entries of a {@code .zip} archive, as if the archive was a directory.
+ * <p>
+ * Only the central directory of the archive is read, the entries themselves are read
+ * using {@link ReportFiles} once the reports are parsed.
+ */
+final class ArchiveEntries {
+    private static final Logger LOGGER = Loggers.get(ArchiveEntries.class);
+    private static final String ARCHIVE_SUFFIX = ".zip";
+
+    private ArchiveEntries() {
+    }
+
+    static boolean isArchive(@Nonnull String name) {
+        return name.toLowerCase(Locale.ENGLISH).endsWith(ARCHIVE_SUFFIX);
+    }
+
+    /**
+     * Find the entries of an archive matching the patterns.
+     *
+     * @param pattern Patterns to match the entries against.
+     * @param state State of the directory containing the archive.
+     * @param archive Archive to search.
+     * @return Entries matching the patterns, as paths within the archive.
+     */
+    @Nonnull
+    static List<MatchingFile> findMatching(@Nonnull ReportPathPattern pattern, @Nonnull BitSet state, @Nonnull Path archive) {
+        List<MatchingFile> matchingFiles = new ArrayList<>();
+
+        BitSet archiveState = pattern.next(state, archive.getFileName().toString());
+        if (archiveState.isEmpty()) {
+            return matchingFiles;
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Map<String, BitSet> states = new HashMap<>();
+            states.put("", archiveState);
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !isValidName(name)) {
+                    continue;
+                }
+
+                int separator = name.lastIndexOf('/');
+                BitSet directoryState = findState(pattern, states, name.substring(0, separator + 1));
+                if (directoryState.isEmpty()) {
+                    continue;
+                }
+
+                BitSet matchingPatterns = pattern.matchingPatterns(directoryState, name.substring(separator + 1));
+                if (!matchingPatterns.isEmpty()) {
+                    matchingFiles.add(MatchingFile.from(archive.resolve(name), matchingPatterns));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", archive, e);
+        }
+
+        return matchingFiles;
+    }
+
+    /**
+     * Get the state of a directory within the archive, the entries are not ordered so
+     * the state of each directory is kept for the following entries.
+     */
+    @Nonnull
+    private static BitSet findState(
+            @Nonnull ReportPathPattern pattern,
+            @Nonnull Map<String, BitSet> states,
+            @Nonnull String directory
+    ) {
+        BitSet state = states.get(directory);
+        if (null != state) {
+            return state;
+        }
+
+        int separator = directory.lastIndexOf('/', directory.length() - 2);
+        BitSet parentState = findState(pattern, states, directory.substring(0, separator + 1));
+        if (parentState.isEmpty()) {
+            state = parentState;
+        } else {
+            state = pattern.next(parentState, directory.substring(separator + 1, directory.length() - 1));
+        }
+
+        states.put(directory, state);
+        return state;
+    }
+
+    /**
+     * Entries with absolute paths, or paths leading outside of the archive, are ignored.
+     */
+    private static boolean isValidName(@Nonnull String name) {
+        if (name.isEmpty() || name.startsWith("/")) {
+            return false;
+        }
+
+        for (String segment : name.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
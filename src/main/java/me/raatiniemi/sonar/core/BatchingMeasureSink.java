@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measure sink passing the measures on to {@link SensorMeasurePersistence#saveMeasures(java.util.Collection)}
+ * in batches of a fixed size.
+ */
+final class BatchingMeasureSink<T> implements MeasureSink<T> {
+    private final SensorMeasurePersistence<T> persistence;
+    private final int batchSize;
+    private final List<T> measures;
+
+    private BatchingMeasureSink(@Nonnull SensorMeasurePersistence<T> persistence, int batchSize) {
+        this.persistence = persistence;
+        this.batchSize = batchSize;
+
+        measures = new ArrayList<>(batchSize);
+    }
+
+    @Nonnull
+    static <T> MeasureSink<T> create(@Nonnull SensorMeasurePersistence<T> persistence, int batchSize) {
+        return new BatchingMeasureSink<>(persistence, batchSize);
+    }
+
+    @Override
+    public void accept(@Nonnull T measure) {
+        measures.add(measure);
+        if (measures.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (measures.isEmpty()) {
+            return;
+        }
+
+        persistence.saveMeasures(new ArrayList<>(measures));
+        measures.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
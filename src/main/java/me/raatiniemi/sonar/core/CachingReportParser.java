@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.store.RecordCodec;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Report parser reusing the result from a {@link ReportCache} for reports that have
+ * not changed since they were parsed.
+ *
+ * @param <T> Type of the parsed result.
+ */
+public final class CachingReportParser<T> implements ReportParser<T> {
+    private final ReportParser<T> parser;
+    private final ReportCache reportCache;
+    private final RecordCodec<T> codec;
+
+    private CachingReportParser(
+            @Nonnull ReportParser<T> parser,
+            @Nonnull ReportCache reportCache,
+            @Nonnull RecordCodec<T> codec
+    ) {
+        this.parser = parser;
+        this.reportCache = reportCache;
+        this.codec = codec;
+    }
+
+    @Nonnull
+    public static <T> ReportParser<T> create(
+            @Nonnull ReportParser<T> parser,
+            @Nonnull ReportCache reportCache,
+            @Nonnull RecordCodec<T> codec
+    ) {
+        return new CachingReportParser<>(parser, reportCache, codec);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<T> parse(@Nonnull File reportFile) {
+        Optional<T> cachedValue = reportCache.get(reportFile, codec);
+        if (cachedValue.isPresent()) {
+            return cachedValue;
+        }
+
+        Optional<T> value = parser.parse(reportFile);
+        value.ifPresent(result -> reportCache.put(reportFile, result, codec));
+
+        return value;
+    }
+}
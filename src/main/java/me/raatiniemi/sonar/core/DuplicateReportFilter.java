@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Filter for reports with the same content as a report that have already been accepted,
+ * e.g. copies of the same report in several build directories.
+ * <p>
+ * Reports are first compared by size, and the content is only hashed when another report
+ * with the same size have been accepted. The filter is not thread safe.
+ */
+public final class DuplicateReportFilter implements Predicate<File> {
+    private static final Logger LOGGER = Loggers.get(DuplicateReportFilter.class);
+
+    private final Map<Long, File> unhashedReports = new HashMap<>();
+    private final Map<ByteBuffer, File> hashedReports = new HashMap<>();
+
+    private DuplicateReportFilter() {
+    }
+
+    @Nonnull
+    public static DuplicateReportFilter create() {
+        return new DuplicateReportFilter();
+    }
+
+    /**
+     * @param reportFile Report to check.
+     * @return true if no report with the same content have been accepted, otherwise false.
+     */
+    @Override
+    public boolean test(@Nonnull File reportFile) {
+        long size = reportFile.length();
+        if (!unhashedReports.containsKey(size)) {
+            unhashedReports.put(size, reportFile);
+            return true;
+        }
+
+        File firstReport = unhashedReports.get(size);
+        if (null != firstReport && !addHash(size, firstReport)) {
+            return true;
+        }
+        unhashedReports.put(size, null);
+
+        try {
+            ByteBuffer key = hash(size, reportFile);
+            File duplicateOf = hashedReports.putIfAbsent(key, reportFile);
+            if (null != duplicateOf) {
+                LOGGER.info("Skipping report {}, it have the same content as {}", reportFile, duplicateOf);
+                return false;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to check if {} is a duplicate report", reportFile, e);
+        }
+
+        return true;
+    }
+
+    private boolean addHash(long size, @Nonnull File reportFile) {
+        try {
+            hashedReports.putIfAbsent(hash(size, reportFile), reportFile);
+            return true;
+        } catch (IOException e) {
+            LOGGER.debug("Unable to check if {} is a duplicate report", reportFile, e);
+            return false;
+        }
+    }
+
+    @Nonnull
+    private static ByteBuffer hash(long size, @Nonnull File reportFile) throws IOException {
+        byte[] hash = FileHashes.sha256(reportFile);
+
+        ByteBuffer key = ByteBuffer.allocate(Long.BYTES + hash.length);
+        key.putLong(size).put(hash).flip();
+        return key;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+final class FileHashes {
+    private static final int BUFFER_SIZE = 65536;
+
+    private FileHashes() {
+    }
+
+    /**
+     * Calculate the SHA-256 hash of the content of a file, reading it in chunks.
+     * <p>
+     * The content of a compressed report is hashed after it have been decompressed.
+     *
+     * @param file File to hash.
+     * @return Hash of the file content.
+     * @throws IOException If the file could not be read.
+     */
+    @Nonnull
+    static byte[] sha256(@Nonnull File file) throws IOException {
+        MessageDigest digest = createDigest();
+        try (InputStream input = ReportFiles.open(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int length = input.read(buffer); length >= 0; length = input.read(buffer)) {
+                digest.update(buffer, 0, length);
+            }
+        }
+
+        return digest.digest();
+    }
+
+    @Nonnull
+    static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.ReportFileIndex.IndexedDirectory;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Report finder answering searches from the {@link ReportFileIndex}.
+ */
+final class IndexedReportFinder implements ReportPatternFinder {
+    private static final Logger LOGGER = Loggers.get(IndexedReportFinder.class);
+
+    private final File reportDirectory;
+    private final Supplier<IndexedDirectory> indexedDirectory;
+    private final ReportSearchOptions options;
+
+    private IndexedReportFinder(
+            @Nonnull File reportDirectory,
+            @Nonnull Supplier<IndexedDirectory> indexedDirectory,
+            @Nonnull ReportSearchOptions options
+    ) {
+        this.reportDirectory = reportDirectory;
+        this.indexedDirectory = indexedDirectory;
+        this.options = options;
+    }
+
+    @Nonnull
+    static ReportPatternFinder create(
+            @Nonnull File reportDirectory,
+            @Nonnull Supplier<IndexedDirectory> indexedDirectory,
+            @Nonnull ReportSearchOptions options
+    ) {
+        return new IndexedReportFinder(reportDirectory, indexedDirectory, options);
+    }
+
+    @Nonnull
+    public Set<File> findReportsMatching(@Nonnull String pattern) {
+        LOGGER.debug("Trying to find reports matching {} in {}", pattern, getReportDirectoryPath());
+
+        return new LinkedHashSet<>(findMatching(Collections.singletonList(pattern)).get(pattern));
+    }
+
+    @Nonnull
+    public Map<String, Set<File>> findReportsMatching(@Nonnull Collection<String> patterns) {
+        LOGGER.debug("Trying to find reports matching {} in {}", patterns, getReportDirectoryPath());
+
+        Map<String, Set<File>> reports = new LinkedHashMap<>();
+        findMatching(patterns).forEach((pattern, files) -> reports.put(pattern, new LinkedHashSet<>(files)));
+
+        return reports;
+    }
+
+    @Nonnull
+    public Optional<File> findReportMatching(@Nonnull String pattern) {
+        LOGGER.debug("Trying to find report matching {} in {}", pattern, getReportDirectoryPath());
+
+        return findMatching(Collections.singletonList(pattern))
+                .get(pattern)
+                .stream()
+                .findFirst();
+    }
+
+    @Nonnull
+    private String getReportDirectoryPath() {
+        return reportDirectory.getAbsolutePath();
+    }
+
+    @Nonnull
+    private Map<String, List<File>> findMatching(@Nonnull Collection<String> patterns) {
+        Map<String, List<File>> reports = new LinkedHashMap<>();
+
+        IndexedDirectory directory = indexedDirectory.get();
+        if (null == directory) {
+            LOGGER.warn("Report directory do not exsists {}", getReportDirectoryPath());
+            patterns.forEach(pattern -> reports.put(pattern, Collections.emptyList()));
+            return reports;
+        }
+
+        ReportPathPattern pathPattern = ReportPathPattern.compile(new LinkedHashSet<>(patterns), options);
+        List<String> uniquePatterns = pathPattern.getPatterns();
+        uniquePatterns.forEach(pattern -> reports.put(pattern, new ArrayList<>()));
+
+        File start = new File(getReportDirectoryPath());
+        collectMatching(pathPattern, directory, pathPattern.initial(), start, uniquePatterns, reports);
+
+        reports.forEach((pattern, files) -> {
+            if (files.isEmpty()) {
+                LOGGER.debug("No report(s) matching {} was found in {}", pattern, getReportDirectoryPath());
+                return;
+            }
+
+            LOGGER.debug("Found {} report(s) matching {} in {}", files.size(), pattern, getReportDirectoryPath());
+        });
+        return reports;
+    }
+
+    private static void collectMatching(
+            @Nonnull ReportPathPattern pathPattern,
+            @Nonnull IndexedDirectory directory,
+            @Nonnull BitSet state,
+            @Nonnull File path,
+            @Nonnull List<String> patterns,
+            @Nonnull Map<String, List<File>> reports
+    ) {
+        for (Object entry : directory.getEntries()) {
+            if (entry instanceof IndexedDirectory) {
+                IndexedDirectory subdirectory = (IndexedDirectory) entry;
+                BitSet next = pathPattern.next(state, subdirectory.getName());
+                if (!next.isEmpty()) {
+                    File subdirectoryPath = new File(path, subdirectory.getName());
+                    collectMatching(pathPattern, subdirectory, next, subdirectoryPath, patterns, reports);
+                }
+                continue;
+            }
+
+            String name = (String) entry;
+            File file = new File(path, name);
+            collectMatching(file, pathPattern.matchingPatterns(state, name), patterns, reports);
+
+            if (pathPattern.isSearchableArchive(name)) {
+                for (MatchingFile matchingFile : ArchiveEntries.findMatching(pathPattern, state, file.toPath())) {
+                    collectMatching(matchingFile.getPath().toFile(), matchingFile.getPatterns(), patterns, reports);
+                }
+            }
+        }
+    }
+
+    private static void collectMatching(
+            @Nonnull File file,
+            @Nonnull BitSet matchingPatterns,
+            @Nonnull List<String> patterns,
+            @Nonnull Map<String, List<File>> reports
+    ) {
+        for (int i = matchingPatterns.nextSetBit(0); i >= 0; i = matchingPatterns.nextSetBit(i + 1)) {
+            reports.get(patterns.get(i)).add(file);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the input files in the file system, by relative and absolute path.
+ * <p>
+ * The file system is read once when the index is created, and every lookup after that
+ * is answered from memory. Paths without an exact match, e.g. absolute paths from reports
+ * produced on another machine, are resolved to the input file with the longest relative
+ * path that is a suffix of the path.
+ */
+final class InputFileIndex {
+    private static final Logger LOGGER = Loggers.get(InputFileIndex.class);
+
+    private final Map<String, InputFile> relativePaths;
+    private final Map<String, InputFile> absolutePaths;
+    private final InputFileSuffixTrie suffixes;
+
+    private InputFileIndex(
+            @Nonnull Map<String, InputFile> relativePaths,
+            @Nonnull Map<String, InputFile> absolutePaths,
+            @Nonnull InputFileSuffixTrie suffixes
+    ) {
+        this.relativePaths = relativePaths;
+        this.absolutePaths = absolutePaths;
+        this.suffixes = suffixes;
+    }
+
+    @Nonnull
+    static InputFileIndex create(@Nonnull FileSystem fileSystem) {
+        Map<String, InputFile> relativePaths = new HashMap<>();
+        Map<String, InputFile> absolutePaths = new HashMap<>();
+        InputFileSuffixTrie suffixes = InputFileSuffixTrie.create();
+        Path baseDirectory = fileSystem.baseDir().toPath();
+        for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
+            Path path = Paths.get(inputFile.uri());
+            String relativePath = normalize(baseDirectory.relativize(path).toString());
+            relativePaths.put(relativePath, inputFile);
+            absolutePaths.put(normalize(path.toString()), inputFile);
+            suffixes.add(relativePath, inputFile);
+        }
+
+        LOGGER.debug("Indexed {} input file(s)", relativePaths.size());
+        return new InputFileIndex(relativePaths, absolutePaths, suffixes);
+    }
+
+    /**
+     * Find input file by path, using the same rules as
+     * {@link org.sonar.api.batch.fs.FilePredicates#hasPath(String)}, i.e. an absolute path
+     * is matched against the absolute path of the input files, and a relative path is
+     * matched against the path relative to the base directory.
+     * <p>
+     * If no input file have the path, the input file with the longest relative path that
+     * is a suffix of the path is used.
+     *
+     * @param path Relative or absolute path of the input file.
+     * @return Input file, or null if no input file exists for the path, or if the path
+     * can not be represented on the platform.
+     */
+    @CheckForNull
+    InputFile find(@Nonnull String path) {
+        String normalizedPath;
+        InputFile inputFile;
+        try {
+            normalizedPath = normalize(path);
+            inputFile = Paths.get(normalizedPath).isAbsolute()
+                    ? absolutePaths.get(normalizedPath)
+                    : relativePaths.get(normalizedPath);
+        } catch (InvalidPathException e) {
+            LOGGER.debug("Unable to resolve {}: {}", path, e.getMessage());
+            return null;
+        }
+        if (null != inputFile) {
+            return inputFile;
+        }
+
+        inputFile = suffixes.find(normalizedPath);
+        if (null != inputFile) {
+            LOGGER.debug("Resolved {} to {} using the path suffix", path, inputFile);
+        }
+
+        return inputFile;
+    }
+
+    @Nonnull
+    private static String normalize(@Nonnull String path) {
+        return Paths.get(path.replace('\\', '/'))
+                .normalize()
+                .toString()
+                .replace('\\', '/');
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.batch.fs.InputFile;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie of input file paths keyed by the path segments in reverse order, i.e. starting
+ * with the file name.
+ * <p>
+ * Used for resolving paths from reports produced on another machine, e.g. with a
+ * different build directory, where only the end of the path is the same as for the
+ * input file. The lookup follows the segments of the path from the end, so the time is
+ * proportional to the number of segments rather than the number of input files.
+ * <p>
+ * Only an input file where the whole relative path is a suffix of the path is matched,
+ * i.e. sharing the file name, or a few trailing directories, is not enough.
+ */
+final class InputFileSuffixTrie {
+    private final Node root = new Node();
+
+    private InputFileSuffixTrie() {
+    }
+
+    @Nonnull
+    static InputFileSuffixTrie create() {
+        return new InputFileSuffixTrie();
+    }
+
+    void add(@Nonnull String path, @Nonnull InputFile inputFile) {
+        String[] segments = split(path);
+
+        Node node = root;
+        for (int i = segments.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(segments[i], key -> new Node());
+        }
+        node.inputFile = inputFile;
+    }
+
+    /**
+     * Find the input file with the longest relative path that is a suffix of the path.
+     *
+     * @param path Path to resolve, separated with either forward or backward slashes.
+     * @return Input file, or null if the relative path of no input file is a suffix of
+     * the path.
+     */
+    @CheckForNull
+    InputFile find(@Nonnull String path) {
+        String[] segments = split(path);
+
+        InputFile inputFile = null;
+        Node node = root;
+        for (int i = segments.length - 1; i >= 0; i--) {
+            node = node.children.get(segments[i]);
+            if (null == node) {
+                break;
+            }
+            if (null != node.inputFile) {
+                inputFile = node.inputFile;
+            }
+        }
+
+        return inputFile;
+    }
+
+    @Nonnull
+    private static String[] split(@Nonnull String path) {
+        return path.replace('\\', '/').split("/+");
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * Input file where the relative path ends at the node, if any.
+         */
+        private InputFile inputFile;
+    }
+}
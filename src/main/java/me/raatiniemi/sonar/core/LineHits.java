@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalInt;
+
+/**
+ * Number of hits for each line within a file, e.g. line coverage.
+ * <p>
+ * The hits are packed into an array of longs using the fewest bits per line needed for
+ * the highest number of hits, i.e. 8, 16 or 32 bits. The lines that have hits, including
+ * lines with zero hits, are kept in a bit set. For most files every line fits in a single
+ * byte, so line coverage for two million lines takes roughly two megabytes.
+ */
+public final class LineHits {
+    private static final int INITIAL_NUMBER_OF_LINES = 64;
+
+    private final BitSet lines = new BitSet();
+
+    private long[] words;
+    private int bitsPerValue = Byte.SIZE;
+
+    private LineHits() {
+        words = new long[INITIAL_NUMBER_OF_LINES / valuesPerWord()];
+    }
+
+    @Nonnull
+    public static LineHits create() {
+        return new LineHits();
+    }
+
+    /**
+     * Add hits for line, any previous hits for the line are added to.
+     *
+     * @param line Line number, starting at one.
+     * @param hits Number of hits, zero for a line that have not been hit.
+     */
+    public void add(int line, int hits) {
+        if (line < 1) {
+            throw new IllegalArgumentException("Line number must be at least one, got " + line);
+        }
+        if (hits < 0) {
+            throw new IllegalArgumentException("Number of hits can not be negative, got " + hits);
+        }
+
+        int index = line - 1;
+        int value = hits;
+        if (lines.get(index)) {
+            value = saturatedAdd(read(index), hits);
+        }
+
+        write(index, value);
+        lines.set(index);
+    }
+
+    @Nonnull
+    public OptionalInt get(int line) {
+        if (line < 1 || !lines.get(line - 1)) {
+            return OptionalInt.empty();
+        }
+
+        return OptionalInt.of(read(line - 1));
+    }
+
+    /**
+     * @return Number of lines with hits, including lines with zero hits.
+     */
+    public int size() {
+        return lines.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Add the hits from another file to this file, e.g. coverage from another test bundle.
+     *
+     * @param lineHits Hits to add.
+     */
+    public void merge(@Nonnull LineHits lineHits) {
+        lineHits.forEach(this::add);
+    }
+
+    /**
+     * Get the lines that have been hit at least once.
+     *
+     * @return Lines that have been hit.
+     */
+    @Nonnull
+    public LineSet coveredLines() {
+        LineSet lineSet = LineSet.create();
+        forEach((line, hits) -> {
+            if (hits > 0) {
+                lineSet.add(line);
+            }
+        });
+
+        return lineSet;
+    }
+
+    /**
+     * Visit every line with hits in ascending order.
+     *
+     * @param visitor Visitor for the lines.
+     */
+    public void forEach(@Nonnull Visitor visitor) {
+        for (int i = lines.nextSetBit(0); i >= 0; i = lines.nextSetBit(i + 1)) {
+            visitor.visit(i + 1, read(i));
+        }
+    }
+
+    private int valuesPerWord() {
+        return Long.SIZE / bitsPerValue;
+    }
+
+    private long mask() {
+        return (1L << bitsPerValue) - 1;
+    }
+
+    private int read(int index) {
+        int valuesPerWord = valuesPerWord();
+        long word = words[index / valuesPerWord];
+        int shift = (index % valuesPerWord) * bitsPerValue;
+
+        return (int) ((word >>> shift) & mask());
+    }
+
+    private void write(int index, int value) {
+        while (value > mask()) {
+            widen();
+        }
+
+        int valuesPerWord = valuesPerWord();
+        int wordIndex = index / valuesPerWord;
+        if (wordIndex >= words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, wordIndex + 1));
+        }
+
+        int shift = (index % valuesPerWord) * bitsPerValue;
+        words[wordIndex] = words[wordIndex] & ~(mask() << shift) | (long) value << shift;
+    }
+
+    private void widen() {
+        int numberOfValues = words.length * valuesPerWord();
+        int[] values = new int[numberOfValues];
+        for (int i = lines.nextSetBit(0); i >= 0 && i < numberOfValues; i = lines.nextSetBit(i + 1)) {
+            values[i] = read(i);
+        }
+
+        bitsPerValue *= 2;
+        words = new long[(numberOfValues + valuesPerWord() - 1) / valuesPerWord()];
+        for (int i = lines.nextSetBit(0); i >= 0 && i < numberOfValues; i = lines.nextSetBit(i + 1)) {
+            write(i, values[i]);
+        }
+    }
+
+    private static int saturatedAdd(int value, int hits) {
+        int sum = value + hits;
+        return sum < 0 ? Integer.MAX_VALUE : sum;
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int line, int hits);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of line numbers within a file, e.g. lines with issues, kept as a bit set.
+ */
+public final class LineSet {
+    private final BitSet lines;
+
+    private LineSet(@Nonnull BitSet lines) {
+        this.lines = lines;
+    }
+
+    @Nonnull
+    public static LineSet create() {
+        return new LineSet(new BitSet());
+    }
+
+    @Nonnull
+    public static LineSet of(@Nonnull int... lines) {
+        LineSet lineSet = create();
+        for (int line : lines) {
+            lineSet.add(line);
+        }
+
+        return lineSet;
+    }
+
+    public void add(int line) {
+        lines.set(index(line));
+    }
+
+    public boolean contains(int line) {
+        return line > 0 && lines.get(index(line));
+    }
+
+    public int size() {
+        return lines.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Add every line from another set to this set.
+     *
+     * @param lineSet Set with lines to add.
+     */
+    public void union(@Nonnull LineSet lineSet) {
+        lines.or(lineSet.lines);
+    }
+
+    /**
+     * Visit every line in ascending order.
+     *
+     * @param consumer Consumer for the line numbers.
+     */
+    public void forEach(@Nonnull IntConsumer consumer) {
+        for (int i = lines.nextSetBit(0); i >= 0; i = lines.nextSetBit(i + 1)) {
+            consumer.accept(i + 1);
+        }
+    }
+
+    private static int index(int line) {
+        if (line < 1) {
+            throw new IllegalArgumentException("Line number must be at least one, got " + line);
+        }
+
+        return line - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof LineSet)) {
+            return false;
+        }
+
+        return lines.equals(((LineSet) o).lines);
+    }
+
+    @Override
+    public int hashCode() {
+        return lines.hashCode();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input stream reading a file mapped into memory.
+ * <p>
+ * The file is mapped one region at a time, so that files larger than a single mapping
+ * can be read. Reads are served by copying directly from the mapped region, without any
+ * reads from the file channel.
+ * <p>
+ * A mapping can not be released explicitly, i.e. regions that have been read, and the
+ * current region after the stream is closed, stay mapped until the buffers are garbage
+ * collected. Until then the file remains locked on Windows.
+ */
+final class MappedInputStream extends InputStream {
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private ByteBuffer region;
+    private long position;
+
+    private MappedInputStream(@Nonnull FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    @Nonnull
+    static InputStream open(@Nonnull Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedInputStream(channel, channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!hasRemaining()) {
+            return -1;
+        }
+
+        return region.get() & 0xFF;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] bytes, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!hasRemaining()) {
+            return -1;
+        }
+
+        int numberOfBytes = Math.min(length, region.remaining());
+        region.get(bytes, offset, numberOfBytes);
+        return numberOfBytes;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long remaining = size - getPosition();
+        long skipped = Math.min(n, remaining);
+        position = getPosition() + skipped;
+        region = null;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - getPosition());
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    private long getPosition() {
+        if (null == region) {
+            return position;
+        }
+
+        return position + region.position();
+    }
+
+    /**
+     * Map the next region once the current region have been read.
+     */
+    private boolean hasRemaining() throws IOException {
+        if (null != region && region.hasRemaining()) {
+            return true;
+        }
+
+        long next = getPosition();
+        if (next >= size) {
+            return false;
+        }
+
+        position = next;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * File found during a walk, together with the index of the patterns that it matched.
+ */
+final class MatchingFile {
+    private final Path path;
+    private final BitSet patterns;
+
+    private MatchingFile(@Nonnull Path path, @Nonnull BitSet patterns) {
+        this.path = path;
+        this.patterns = patterns;
+    }
+
+    @Nonnull
+    static MatchingFile from(@Nonnull Path path, @Nonnull BitSet patterns) {
+        return new MatchingFile(path, patterns);
+    }
+
+    @Nonnull
+    Path getPath() {
+        return path;
+    }
+
+    @Nonnull
+    BitSet getPatterns() {
+        return patterns;
+    }
+
+    boolean isMatching(int patternIndex) {
+        return patterns.get(patternIndex);
+    }
+}
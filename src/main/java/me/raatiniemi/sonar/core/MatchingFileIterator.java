@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Walk a directory one entry at a time, returning each file matching the patterns as soon
+ * as it is found.
+ * <p>
+ * The files are returned in the same order as the walk performed by {@link ReportFinder},
+ * and directories where nothing can match are skipped in the same way. Only the
+ * directories from the start directory to the current entry are kept open.
+ * <p>
+ * The matching entries of an archive are read together, and returned before the walk
+ * continues with the entry following the archive.
+ */
+final class MatchingFileIterator implements Iterator<Path>, Closeable {
+    private static final Logger LOGGER = Loggers.get(MatchingFileIterator.class);
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final Deque<Path> archiveEntries = new ArrayDeque<>();
+    private final ReportPathPattern pattern;
+    private final Path directory;
+
+    private boolean started;
+    private Path next;
+
+    private MatchingFileIterator(@Nonnull ReportPathPattern pattern, @Nonnull Path directory) {
+        this.pattern = pattern;
+        this.directory = directory;
+    }
+
+    @Nonnull
+    static MatchingFileIterator create(@Nonnull ReportPathPattern pattern, @Nonnull Path directory) {
+        return new MatchingFileIterator(pattern, directory);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (null == next) {
+            next = advance();
+        }
+
+        return null != next;
+    }
+
+    @Override
+    public Path next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Path value = next;
+        next = null;
+
+        return value;
+    }
+
+    @CheckForNull
+    private Path advance() {
+        if (!started) {
+            started = true;
+            BasicFileAttributes attributes = readAttributes(directory);
+            if (null != attributes) {
+                push(directory, pattern.initial(), attributes);
+            }
+        }
+
+        while (!archiveEntries.isEmpty() || !frames.isEmpty()) {
+            if (!archiveEntries.isEmpty()) {
+                return archiveEntries.poll();
+            }
+
+            Frame frame = frames.peek();
+            Path entry = frame.nextEntry();
+            if (null == entry) {
+                frames.pop().close();
+                continue;
+            }
+
+            BasicFileAttributes attributes = readAttributes(entry);
+            if (null == attributes) {
+                continue;
+            }
+
+            if (attributes.isDirectory()) {
+                enterDirectory(frame, entry, attributes);
+                continue;
+            }
+
+            String name = entry.getFileName().toString();
+            if (pattern.isSearchableArchive(name)) {
+                for (MatchingFile matchingFile : ArchiveEntries.findMatching(pattern, frame.state, entry)) {
+                    archiveEntries.add(matchingFile.getPath());
+                }
+            }
+
+            if (pattern.matches(frame.state, name)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    private void enterDirectory(@Nonnull Frame frame, @Nonnull Path entry, @Nonnull BasicFileAttributes attributes) {
+        if (isAncestor(attributes.fileKey())) {
+            LOGGER.debug("Skipping {} since it would cause a file system loop", entry);
+            return;
+        }
+
+        BitSet state = pattern.next(frame.state, entry.getFileName().toString());
+        if (state.isEmpty()) {
+            return;
+        }
+
+        push(entry, state, attributes);
+    }
+
+    private boolean isAncestor(Object fileKey) {
+        if (null == fileKey) {
+            return false;
+        }
+
+        for (Frame frame : frames) {
+            if (Objects.equals(fileKey, frame.fileKey)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void push(@Nonnull Path directory, @Nonnull BitSet state, @Nonnull BasicFileAttributes attributes) {
+        try {
+            DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory);
+            frames.push(new Frame(directory, directoryStream, state, attributes.fileKey()));
+        } catch (IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", directory, e);
+        }
+    }
+
+    @CheckForNull
+    private static BasicFileAttributes readAttributes(@Nonnull Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", path, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        while (!frames.isEmpty()) {
+            frames.pop().close();
+        }
+    }
+
+    private static final class Frame {
+        private final Path directory;
+        private final DirectoryStream<Path> directoryStream;
+        private final Iterator<Path> entries;
+        private final BitSet state;
+        private final Object fileKey;
+
+        private Frame(
+                @Nonnull Path directory,
+                @Nonnull DirectoryStream<Path> directoryStream,
+                @Nonnull BitSet state,
+                Object fileKey
+        ) {
+            this.directory = directory;
+            this.directoryStream = directoryStream;
+            this.entries = directoryStream.iterator();
+            this.state = state;
+            this.fileKey = fileKey;
+        }
+
+        @CheckForNull
+        private Path nextEntry() {
+            try {
+                if (entries.hasNext()) {
+                    return entries.next();
+                }
+            } catch (DirectoryIteratorException e) {
+                LOGGER.debug("Unable to search for reports in {}", directory, e.getCause());
+            }
+
+            return null;
+        }
+
+        private void close() {
+            try {
+                directoryStream.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close directory {}", directory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Collect files matching the patterns within a directory, where each subdirectory that
+ * can contain matching files is searched by a forked task.
+ * <p>
+ * The result of the subdirectories are joined in the order that the entries were read
+ * from the directory, i.e. the files are returned in the same order as the sequential
+ * walk of the directory would return them.
+ */
+final class MatchingFileTask extends RecursiveTask<List<MatchingFile>> {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Loggers.get(MatchingFileTask.class);
+
+    private final ReportPathPattern pattern;
+    private final Path directory;
+    private final BitSet state;
+    private final Ancestor ancestor;
+
+    private MatchingFileTask(
+            @Nonnull ReportPathPattern pattern,
+            @Nonnull Path directory,
+            @Nonnull BitSet state,
+            @Nullable Ancestor ancestor
+    ) {
+        this.pattern = pattern;
+        this.directory = directory;
+        this.state = state;
+        this.ancestor = ancestor;
+    }
+
+    @Nonnull
+    static MatchingFileTask create(@Nonnull ReportPathPattern pattern, @Nonnull Path directory) {
+        return new MatchingFileTask(pattern, directory, pattern.initial(), null);
+    }
+
+    @Override
+    protected List<MatchingFile> compute() {
+        Ancestor current;
+        try {
+            current = new Ancestor(ancestor, readAttributes(directory).fileKey());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", directory, e);
+            return new ArrayList<>();
+        }
+
+        List<Object> entries = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path entry : directoryStream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = readAttributes(entry);
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to search for reports in {}", entry, e);
+                    continue;
+                }
+
+                if (attributes.isDirectory()) {
+                    forkForDirectory(entry, attributes, current, entries);
+                    continue;
+                }
+
+                String name = entry.getFileName().toString();
+                BitSet matchingPatterns = pattern.matchingPatterns(state, name);
+                if (!matchingPatterns.isEmpty()) {
+                    entries.add(MatchingFile.from(entry, matchingPatterns));
+                }
+                if (pattern.isSearchableArchive(name)) {
+                    entries.addAll(ArchiveEntries.findMatching(pattern, state, entry));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", directory, e);
+        }
+
+        return join(entries);
+    }
+
+    @Nonnull
+    private static BasicFileAttributes readAttributes(@Nonnull Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+
+    private void forkForDirectory(
+            @Nonnull Path entry,
+            @Nonnull BasicFileAttributes attributes,
+            @Nonnull Ancestor current,
+            @Nonnull List<Object> entries
+    ) {
+        if (current.contains(attributes.fileKey())) {
+            LOGGER.debug("Skipping {} since it would cause a file system loop", entry);
+            return;
+        }
+
+        BitSet next = pattern.next(state, entry.getFileName().toString());
+        if (next.isEmpty()) {
+            return;
+        }
+
+        MatchingFileTask task = new MatchingFileTask(pattern, entry, next, current);
+        task.fork();
+        entries.add(task);
+    }
+
+    @Nonnull
+    private static List<MatchingFile> join(@Nonnull List<Object> entries) {
+        List<MatchingFile> matchingFiles = new ArrayList<>();
+        for (Object entry : entries) {
+            if (entry instanceof MatchingFileTask) {
+                matchingFiles.addAll(((MatchingFileTask) entry).join());
+                continue;
+            }
+
+            matchingFiles.add((MatchingFile) entry);
+        }
+
+        return matchingFiles;
+    }
+
+    /**
+     * Chain of directories from the report directory, used for detecting loops caused by
+     * symbolic links.
+     */
+    private static final class Ancestor {
+        private final Ancestor parent;
+        private final Object fileKey;
+
+        private Ancestor(@Nullable Ancestor parent, @Nullable Object fileKey) {
+            this.parent = parent;
+            this.fileKey = fileKey;
+        }
+
+        private boolean contains(@Nullable Object fileKey) {
+            if (null == fileKey) {
+                return false;
+            }
+
+            for (Ancestor ancestor = this; null != ancestor; ancestor = ancestor.parent) {
+                if (fileKey.equals(ancestor.fileKey)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
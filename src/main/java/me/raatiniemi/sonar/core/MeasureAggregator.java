@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * Merge integer metric values for the same path from multiple reports, e.g. coverage
+ * reports for each test bundle.
+ * <p>
+ * The paths are kept in an open addressing hash table, and the values for each path
+ * and metric in a single primitive array, i.e. no objects are created for the values.
+ * Each path is only kept once, so the path instances given to the visitor are shared
+ * between every report that referenced the path.
+ * <p>
+ * The aggregator is not thread safe, use one aggregator per thread and combine them
+ * using {@link #merge(MeasureAggregator)}.
+ */
+public final class MeasureAggregator {
+    private static final int MAXIMUM_NUMBER_OF_METRICS = Long.SIZE;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private final Merge[] merges;
+
+    /**
+     * Index of the path for each slot in the hash table, {@link #EMPTY} for empty slots.
+     */
+    private int[] slots;
+    private String[] paths;
+    private int[] values;
+    private long[] present;
+    private int size;
+
+    private MeasureAggregator(@Nonnull Merge[] merges) {
+        this.merges = merges;
+
+        slots = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(slots, EMPTY);
+        paths = new String[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY * merges.length];
+        present = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param merges How the values are merged, one for each metric, the index of the
+     *               merge is used as the index of the metric.
+     * @return Measure aggregator.
+     */
+    @Nonnull
+    public static MeasureAggregator create(@Nonnull Merge... merges) {
+        if (merges.length == 0 || merges.length > MAXIMUM_NUMBER_OF_METRICS) {
+            throw new IllegalArgumentException("Number of metrics must be between 1 and " + MAXIMUM_NUMBER_OF_METRICS);
+        }
+
+        return new MeasureAggregator(merges.clone());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add value for the path and metric, merging it with any previous value.
+     *
+     * @param path Path of the file.
+     * @param metric Index of the metric.
+     * @param value Value of the metric.
+     */
+    public void add(@Nonnull String path, int metric, int value) {
+        checkMetric(metric);
+
+        int index = indexOf(path, true);
+        int position = index * merges.length + metric;
+        long mask = 1L << metric;
+        if ((present[index] & mask) == 0) {
+            values[position] = value;
+            present[index] |= mask;
+            return;
+        }
+
+        values[position] = merges[metric].apply(values[position], value);
+    }
+
+    /**
+     * Merge the values from another aggregator, using the same merges.
+     *
+     * @param aggregator Aggregator to merge values from.
+     */
+    public void merge(@Nonnull MeasureAggregator aggregator) {
+        if (!Arrays.equals(merges, aggregator.merges)) {
+            throw new IllegalArgumentException("Aggregators must use the same merges");
+        }
+
+        aggregator.forEach(this::add);
+    }
+
+    @Nonnull
+    public OptionalInt get(@Nonnull String path, int metric) {
+        checkMetric(metric);
+
+        int index = indexOf(path, false);
+        if (EMPTY == index || (present[index] & 1L << metric) == 0) {
+            return OptionalInt.empty();
+        }
+
+        return OptionalInt.of(values[index * merges.length + metric]);
+    }
+
+    /**
+     * Visit every value, in the order that the paths were first added.
+     *
+     * @param visitor Visitor for the values.
+     */
+    public void forEach(@Nonnull Visitor visitor) {
+        for (int index = 0; index < size; index++) {
+            for (int metric = 0; metric < merges.length; metric++) {
+                if ((present[index] & 1L << metric) != 0) {
+                    visitor.visit(paths[index], metric, values[index * merges.length + metric]);
+                }
+            }
+        }
+    }
+
+    private void checkMetric(int metric) {
+        if (metric < 0 || metric >= merges.length) {
+            throw new IndexOutOfBoundsException("No metric is available at index " + metric);
+        }
+    }
+
+    private int indexOf(@Nonnull String path, boolean add) {
+        int mask = slots.length - 1;
+        int slot = mix(path.hashCode()) & mask;
+        while (EMPTY != slots[slot]) {
+            String candidate = paths[slots[slot]];
+            if (candidate == path || candidate.equals(path)) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (!add) {
+            return EMPTY;
+        }
+
+        if (size == paths.length) {
+            grow();
+            return indexOf(path, true);
+        }
+
+        int index = size++;
+        paths[index] = path;
+        slots[slot] = index;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = paths.length * 2;
+        paths = Arrays.copyOf(paths, capacity);
+        values = Arrays.copyOf(values, capacity * merges.length);
+        present = Arrays.copyOf(present, capacity);
+
+        slots = new int[capacity * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(paths[index].hashCode()) & mask;
+            while (EMPTY != slots[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index;
+        }
+    }
+
+    /**
+     * Spread the bits of the hash code, since paths often share long common prefixes.
+     */
+    private static int mix(int hashCode) {
+        int hash = hashCode * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    public enum Merge {
+        SUM {
+            @Override
+            int apply(int previous, int value) {
+                return previous + value;
+            }
+        },
+        MAX {
+            @Override
+            int apply(int previous, int value) {
+                return Math.max(previous, value);
+            }
+        },
+        MIN {
+            @Override
+            int apply(int previous, int value) {
+                return Math.min(previous, value);
+            }
+        },
+        /**
+         * Union of values used as bit flags.
+         */
+        UNION {
+            @Override
+            int apply(int previous, int value) {
+                return previous | value;
+            }
+        };
+
+        abstract int apply(int previous, int value);
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(@Nonnull String path, int metric, int value);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * Buffer of measures, grouped by input file and metric, that are saved in bulk.
+ * <p>
+ * Measures for the same input file and metric are collapsed into a single measure
+ * before they are saved, i.e. the number of saved measures depend on the number of
+ * distinct input file and metric pairs rather than on the number of records in the
+ * reports. The buffer is only flushed when it is closed, or when flushed explicitly, so
+ * that measures added later in a stream are still merged with the buffered measures.
+ * <p>
+ * The buffer is not bounded, i.e. the memory used grows with the number of distinct input
+ * file and metric pairs until the buffer is flushed.
+ * <p>
+ * A detached buffer is not connected to a sensor context, it only collects the measures
+ * until they are drained into another buffer. Used for preparing measures on threads
+ * other than the one saving them.
+ */
+public final class MeasureBuffer implements Closeable {
+    private static final Logger LOGGER = Loggers.get(MeasureBuffer.class);
+
+    private final Map<InputFile, Map<String, PendingMeasure<?>>> measures = new LinkedHashMap<>();
+    private final Map<InputFile, Set<String>> savedMeasures = new HashMap<>();
+    private final SensorContext context;
+
+    private int size;
+
+    private MeasureBuffer(@Nullable SensorContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Create buffer for saving measures using the context.
+     *
+     * @param context Context used for saving the measures.
+     * @return Measure buffer.
+     */
+    @Nonnull
+    public static MeasureBuffer create(@Nonnull SensorContext context) {
+        return new MeasureBuffer(context);
+    }
+
+    @Nonnull
+    static MeasureBuffer createDetached() {
+        return new MeasureBuffer(null);
+    }
+
+    /**
+     * Add measure, replacing any buffered value for the same input file and metric.
+     *
+     * @param inputFile Input file for the measure.
+     * @param metric Metric for the measure.
+     * @param value Value of the measure.
+     * @param <V> Type of the value.
+     */
+    public <V extends Serializable> void add(@Nonnull InputFile inputFile, @Nonnull Metric<V> metric, @Nonnull V value) {
+        add(inputFile, metric, value, (previous, next) -> next);
+    }
+
+    /**
+     * Add measure, merging it with any buffered value for the same input file and metric.
+     * <p>
+     * A measure for an input file and metric that have already been flushed can not be
+     * saved again, and is skipped with a warning.
+     *
+     * @param inputFile Input file for the measure.
+     * @param metric Metric for the measure.
+     * @param value Value of the measure.
+     * @param merge Function for merging the buffered value with the added value.
+     * @param <V> Type of the value.
+     */
+    public synchronized <V extends Serializable> void add(
+            @Nonnull InputFile inputFile,
+            @Nonnull Metric<V> metric,
+            @Nonnull V value,
+            @Nonnull BinaryOperator<V> merge
+    ) {
+        Set<String> saved = savedMeasures.get(inputFile);
+        if (null != saved && saved.contains(metric.key())) {
+            LOGGER.warn("Measure {} for {} have already been saved", metric.key(), inputFile);
+            return;
+        }
+
+        Map<String, PendingMeasure<?>> measuresForFile = measures.computeIfAbsent(inputFile, key -> new LinkedHashMap<>());
+        @SuppressWarnings("unchecked")
+        PendingMeasure<V> measure = (PendingMeasure<V>) measuresForFile.get(metric.key());
+        if (null != measure) {
+            measure.value = merge.apply(measure.value, value);
+            return;
+        }
+
+        measuresForFile.put(metric.key(), new PendingMeasure<>(metric, value, merge));
+        size++;
+    }
+
+    /**
+     * Save the buffered measures.
+     */
+    public synchronized void flush() {
+        if (0 == size) {
+            return;
+        }
+
+        if (null == context) {
+            throw new IllegalStateException("Detached measure buffer can not be flushed");
+        }
+
+        LOGGER.debug("Saving {} measure(s) for {} file(s)", size, measures.size());
+        measures.forEach((inputFile, measuresForFile) -> {
+            Set<String> saved = savedMeasures.computeIfAbsent(inputFile, key -> new HashSet<>());
+            measuresForFile.forEach((metricKey, measure) -> {
+                measure.save(context, inputFile);
+                saved.add(metricKey);
+            });
+        });
+
+        measures.clear();
+        size = 0;
+    }
+
+    /**
+     * Move the buffered measures to another buffer, in the order they were added.
+     *
+     * @param measureBuffer Buffer to move the measures to.
+     */
+    synchronized void drainTo(@Nonnull MeasureBuffer measureBuffer) {
+        measures.forEach((inputFile, measuresForFile) ->
+                measuresForFile.values().forEach(measure -> measure.addTo(measureBuffer, inputFile))
+        );
+
+        measures.clear();
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        if (null != context) {
+            flush();
+        }
+    }
+
+    private static final class PendingMeasure<V extends Serializable> {
+        private final Metric<V> metric;
+        private final BinaryOperator<V> merge;
+        private V value;
+
+        private PendingMeasure(@Nonnull Metric<V> metric, @Nonnull V value, @Nonnull BinaryOperator<V> merge) {
+            this.metric = metric;
+            this.value = value;
+            this.merge = merge;
+        }
+
+        private void addTo(@Nonnull MeasureBuffer measureBuffer, @Nonnull InputFile inputFile) {
+            measureBuffer.add(inputFile, metric, value, merge);
+        }
+
+        private void save(@Nonnull SensorContext context, @Nonnull InputFile inputFile) {
+            context.<V>newMeasure()
+                    .on(inputFile)
+                    .forMetric(metric)
+                    .withValue(value)
+                    .save();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Prepare measures one at a time by adding them to a measure buffer.
+ * <p>
+ * Implemented by a {@link SensorPersistence} to opt into saving streamed measures
+ * individually, instead of passing them on to
+ * {@link SensorMeasurePersistence#saveMeasures(java.util.Collection)} in batches.
+ *
+ * @param <T> Type of the measure.
+ */
+@FunctionalInterface
+public interface MeasurePreparer<T> {
+    /**
+     * Prepare measure, e.g. resolve its input file and add its values to the buffer.
+     *
+     * @param measure Measure to prepare.
+     * @param measureBuffer Buffer shared by the measures being saved.
+     */
+    void prepare(@Nonnull T measure, @Nonnull MeasureBuffer measureBuffer);
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+
+/**
+ * Sink for measures that are saved as they are produced, e.g. by a
+ * {@link ReportRecordParser}. The sink must be closed once every measure have been
+ * accepted, to make sure that the remaining measures are saved.
+ *
+ * @param <T> Type of the measure.
+ */
+public interface MeasureSink<T> extends Consumer<T>, Closeable {
+    @Override
+    void close();
+}
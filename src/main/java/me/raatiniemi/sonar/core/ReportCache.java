@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.store.RecordCodec;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache of parsed reports, kept on disk between analyses.
+ * <p>
+ * Each entry is stored in a file named by the hash of the report path, and starts with
+ * the size, modification time and SHA-256 hash of the report, followed by the parsed
+ * result written by a {@link RecordCodec}. An entry is used if the report have the same
+ * size and modification time, or the same size and content, as when it was cached. When
+ * only the content is the same, the modification time of the entry is updated so that the
+ * report is not hashed again by the next analysis.
+ * <p>
+ * Entries that have not been used within the maximum age are removed when the cache is
+ * created, as are the least recently used entries when the total size of the cache
+ * exceeds the maximum size.
+ */
+public final class ReportCache {
+    private static final Logger LOGGER = Loggers.get(ReportCache.class);
+    private static final int MAGIC = 0x52504331;
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private final Path directory;
+
+    private ReportCache(@Nonnull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Create report cache, and evict stale entries.
+     *
+     * @param directory Directory for the cache entries.
+     * @param maxAge Maximum time in milliseconds since an entry was last used.
+     * @param maxSize Maximum total size in bytes of the entries.
+     * @return Report cache, or empty if the cache directory is not available.
+     */
+    @Nonnull
+    public static Optional<ReportCache> create(@Nonnull File directory, long maxAge, long maxSize) {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to create report cache in {}", directory, e);
+            return Optional.empty();
+        }
+
+        ReportCache reportCache = new ReportCache(directory.toPath());
+        reportCache.evict(maxAge, maxSize);
+
+        return Optional.of(reportCache);
+    }
+
+    /**
+     * Get cached result for report.
+     *
+     * @param reportFile Report that have been parsed.
+     * @param codec Codec used when the result was cached.
+     * @param <T> Type of the parsed result.
+     * @return Cached result, or empty if the report have changed or is not cached.
+     */
+    @Nonnull
+    public <T> Optional<T> get(@Nonnull File reportFile, @Nonnull RecordCodec<T> codec) {
+        Path entry = getEntry(reportFile);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+
+        String codecName = codec.getClass().getName();
+        long lastModified;
+        T value;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (MAGIC != input.readInt() || !codecName.equals(input.readUTF())) {
+                return Optional.empty();
+            }
+
+            long size = input.readLong();
+            lastModified = input.readLong();
+            byte[] hash = new byte[32];
+            input.readFully(hash);
+            if (!isUnchanged(reportFile, size, lastModified, hash)) {
+                LOGGER.debug("Report {} have changed since it was cached", reportFile);
+                return Optional.empty();
+            }
+
+            value = codec.read(input);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to read cached result for report {}", reportFile, e);
+            return Optional.empty();
+        }
+
+        try {
+            long reportLastModified = reportFile.lastModified();
+            if (0L != reportLastModified && reportLastModified != lastModified) {
+                updateLastModified(entry, codecName, reportLastModified);
+                LOGGER.debug("Updated modification time of cached report {}", reportFile);
+            }
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("Unable to update cached result for report {}", reportFile, e);
+        }
+
+        LOGGER.debug("Using cached result for report {}", reportFile);
+        return Optional.of(value);
+    }
+
+    /**
+     * Rewrite the modification time in the header of an entry, leaving the rest of the
+     * entry as is.
+     */
+    private static void updateLastModified(@Nonnull Path entry, @Nonnull String codecName, long lastModified)
+            throws IOException {
+        ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(prefix)) {
+            output.writeInt(MAGIC);
+            output.writeUTF(codecName);
+            output.writeLong(0L);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, lastModified);
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.WRITE)) {
+            channel.write(buffer, prefix.size());
+        }
+    }
+
+    /**
+     * Cache result for report.
+     *
+     * @param reportFile Report that have been parsed.
+     * @param value Parsed result.
+     * @param codec Codec for writing the result.
+     * @param <T> Type of the parsed result.
+     */
+    public <T> void put(@Nonnull File reportFile, @Nonnull T value, @Nonnull RecordCodec<T> codec) {
+        Path entry = getEntry(reportFile);
+        Path temporaryEntry = null;
+        try {
+            long size = reportFile.length();
+            long lastModified = reportFile.lastModified();
+            byte[] hash = FileHashes.sha256(reportFile);
+
+            temporaryEntry = Files.createTempFile(directory, "entry", ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryEntry)))) {
+                output.writeInt(MAGIC);
+                output.writeUTF(codec.getClass().getName());
+                output.writeLong(size);
+                output.writeLong(lastModified);
+                output.write(hash);
+                codec.write(value, output);
+            }
+            move(temporaryEntry, entry);
+            LOGGER.debug("Cached result for report {}", reportFile);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to cache result for report {}", reportFile, e);
+            deleteEntry(temporaryEntry);
+        }
+    }
+
+    private static void move(@Nonnull Path source, @Nonnull Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isUnchanged(@Nonnull File reportFile, long size, long lastModified, @Nonnull byte[] hash)
+            throws IOException {
+        if (reportFile.length() != size) {
+            return false;
+        }
+
+        // Reports within archives have no modification time, i.e. only the hash can be compared.
+        if (0L != lastModified && reportFile.lastModified() == lastModified) {
+            return true;
+        }
+
+        return Arrays.equals(hash, FileHashes.sha256(reportFile));
+    }
+
+    @Nonnull
+    private Path getEntry(@Nonnull File reportFile) {
+        byte[] hash = FileHashes.createDigest().digest(reportFile.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder name = new StringBuilder(hash.length * 2 + ENTRY_SUFFIX.length());
+        for (byte b : hash) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return directory.resolve(name.append(ENTRY_SUFFIX).toString());
+    }
+
+    private void evict(long maxAge, long maxSize) {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            directoryStream.forEach(entries::add);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to evict cached reports from {}", directory, e);
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(ReportCache::lastModified).reversed());
+
+        long now = System.currentTimeMillis();
+        long totalSize = 0;
+        int numberOfEvictedEntries = 0;
+        for (Path entry : entries) {
+            totalSize += size(entry);
+            if (now - lastModified(entry) > maxAge || totalSize > maxSize) {
+                deleteEntry(entry);
+                numberOfEvictedEntries++;
+            }
+        }
+
+        if (numberOfEvictedEntries > 0) {
+            LOGGER.debug("Evicted {} cached report(s) from {}", numberOfEvictedEntries, directory);
+        }
+    }
+
+    private static long lastModified(@Nonnull Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long size(@Nonnull Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteEntry(@CheckForNull Path entry) {
+        if (null == entry) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to remove cached report {}", entry, e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the files within the report directories, shared by every sensor during the
+ * analysis.
+ * <p>
+ * A report directory is walked the first time it is requested, and every search after
+ * that is answered from memory, including searches in directories within an already
+ * indexed directory. Files created after a directory have been indexed are not found.
+ * <p>
+ * Register the index as an extension of the plugin, and let the sensors receive it
+ * through their constructor.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public final class ReportFileIndex {
+    private static final Logger LOGGER = Loggers.get(ReportFileIndex.class);
+
+    private final Map<Path, IndexedDirectory> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Get a report finder for a directory, backed by the index.
+     *
+     * @param reportDirectory Directory to search for reports.
+     * @return Report finder for the directory.
+     */
+    @Nonnull
+    public ReportPatternFinder forDirectory(@Nonnull File reportDirectory) {
+        return forDirectory(reportDirectory, ReportSearchOptions.defaults());
+    }
+
+    /**
+     * Get a report finder for a directory, backed by the index.
+     * <p>
+     * The index is shared by sensors with different options, i.e. the directory is
+     * indexed in full and the exclusions and maximum depth are applied when searching.
+     *
+     * @param reportDirectory Directory to search for reports.
+     * @param options Exclusions and maximum depth for the search.
+     * @return Report finder for the directory.
+     */
+    @Nonnull
+    public ReportPatternFinder forDirectory(@Nonnull File reportDirectory, @Nonnull ReportSearchOptions options) {
+        return IndexedReportFinder.create(reportDirectory, () -> getDirectory(reportDirectory), options);
+    }
+
+    @CheckForNull
+    private IndexedDirectory getDirectory(@Nonnull File reportDirectory) {
+        Path path = Paths.get(reportDirectory.getAbsolutePath()).normalize();
+        IndexedDirectory directory = findWithinIndexedDirectory(path);
+        if (null != directory) {
+            return directory;
+        }
+
+        if (!Files.isDirectory(path)) {
+            return null;
+        }
+
+        return directories.computeIfAbsent(path, ReportFileIndex::index);
+    }
+
+    @CheckForNull
+    private IndexedDirectory findWithinIndexedDirectory(@Nonnull Path path) {
+        Deque<String> names = new ArrayDeque<>();
+        for (Path ancestor = path; null != ancestor; ancestor = ancestor.getParent()) {
+            IndexedDirectory directory = directories.get(ancestor);
+            if (null != directory) {
+                return directory.find(names);
+            }
+
+            Path name = ancestor.getFileName();
+            if (null != name) {
+                names.push(name.toString());
+            }
+        }
+
+        return null;
+    }
+
+    @CheckForNull
+    private static IndexedDirectory index(@Nonnull Path path) {
+        LOGGER.debug("Indexing files in {}", path);
+
+        IndexingFileVisitor visitor = new IndexingFileVisitor();
+        try {
+            Files.walkFileTree(path, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to index files in {}", path, e);
+        }
+
+        LOGGER.debug("Indexed {} file(s) in {}", visitor.numberOfFiles, path);
+        return visitor.root;
+    }
+
+    /**
+     * Directory in the index, where the entries are kept in the order they were read
+     * from the file system, i.e. either the name of a file or an indexed directory.
+     */
+    static final class IndexedDirectory {
+        private final String name;
+        private Object[] entries = new Object[0];
+
+        private IndexedDirectory(@Nonnull String name) {
+            this.name = name;
+        }
+
+        @Nonnull
+        String getName() {
+            return name;
+        }
+
+        @Nonnull
+        Object[] getEntries() {
+            return entries;
+        }
+
+        @CheckForNull
+        private IndexedDirectory find(@Nonnull Deque<String> names) {
+            IndexedDirectory directory = this;
+            for (String name : names) {
+                directory = directory.findDirectory(name);
+                if (null == directory) {
+                    return null;
+                }
+            }
+
+            return directory;
+        }
+
+        @CheckForNull
+        private IndexedDirectory findDirectory(@Nonnull String name) {
+            for (Object entry : entries) {
+                if (entry instanceof IndexedDirectory && name.equals(((IndexedDirectory) entry).name)) {
+                    return (IndexedDirectory) entry;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static final class IndexingFileVisitor extends SimpleFileVisitor<Path> {
+        private final Deque<List<Object>> entries = new ArrayDeque<>();
+        private final Deque<IndexedDirectory> directories = new ArrayDeque<>();
+        private final Map<String, String> names = new HashMap<>();
+
+        private IndexedDirectory root;
+        private int numberOfFiles;
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+            Path name = directory.getFileName();
+            IndexedDirectory indexedDirectory = new IndexedDirectory(intern(null == name ? "" : name.toString()));
+            if (directories.isEmpty()) {
+                root = indexedDirectory;
+            } else {
+                entries.peek().add(indexedDirectory);
+            }
+
+            directories.push(indexedDirectory);
+            entries.push(new ArrayList<>());
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+            if (entries.isEmpty() || attributes.isDirectory()) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            entries.peek().add(intern(file.getFileName().toString()));
+            numberOfFiles++;
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            LOGGER.debug("Unable to index {}", file, e);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+            directories.pop().entries = entries.pop().toArray();
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * Names such as "report.xml" or "Info.plist" are repeated throughout a project,
+         * only keep a single instance of each name.
+         */
+        @Nonnull
+        private String intern(@Nonnull String name) {
+            return names.computeIfAbsent(name, key -> key);
+        }
+    }
+}
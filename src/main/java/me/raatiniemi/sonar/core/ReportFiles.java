@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read report files, decompressing them while they are read.
+ * <p>
+ * A report with the {@code .gz} suffix is decompressed using gzip, and a report within
+ * a {@code .zip} archive, e.g. {@code build/reports.zip/report.xml}, is read directly from
+ * the archive entry. Nothing is extracted to disk.
+ * <p>
+ * A report on disk is read as specified by the {@link ReportReadMode}, e.g. mapped into
+ * memory, before it is decompressed.
+ */
+public final class ReportFiles {
+    private static final int BUFFER_SIZE = 65536;
+    private static final int LARGE_BUFFER_SIZE = 1024 * 1024;
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private ReportFiles() {
+    }
+
+    /**
+     * Check if a report file exists, either on disk or as an entry within an archive.
+     *
+     * @param reportFile Report file to check.
+     * @return true if the report file exists, otherwise false.
+     */
+    public static boolean exists(@Nonnull File reportFile) {
+        if (reportFile.isFile()) {
+            return true;
+        }
+
+        Optional<File> archive = findArchive(reportFile);
+        if (!archive.isPresent()) {
+            return false;
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.get())) {
+            ZipEntry entry = zipFile.getEntry(getEntryName(archive.get(), reportFile));
+            return null != entry && !entry.isDirectory();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Open a report file for reading, the content is decompressed while it is read.
+     *
+     * @param reportFile Report file to open.
+     * @return Stream with the decompressed content of the report file.
+     * @throws FileNotFoundException If the report file do not exist.
+     * @throws IOException If the report file could not be opened.
+     */
+    @Nonnull
+    public static InputStream open(@Nonnull File reportFile) throws IOException {
+        return open(reportFile, ReportReadMode.STREAM);
+    }
+
+    /**
+     * Open a report file for reading using the read mode, the content is decompressed
+     * while it is read.
+     *
+     * @param reportFile Report file to open.
+     * @param readMode How the content of the report file is read.
+     * @return Stream with the decompressed content of the report file.
+     * @throws FileNotFoundException If the report file do not exist.
+     * @throws IOException If the report file could not be opened.
+     */
+    @Nonnull
+    public static InputStream open(@Nonnull File reportFile, @Nonnull ReportReadMode readMode) throws IOException {
+        if (reportFile.isFile()) {
+            return decompress(reportFile, openFile(reportFile.toPath(), readMode));
+        }
+
+        Optional<File> archive = findArchive(reportFile);
+        if (!archive.isPresent()) {
+            throw new FileNotFoundException(reportFile.getPath());
+        }
+
+        return decompress(reportFile, openEntry(archive.get(), reportFile));
+    }
+
+    @Nonnull
+    private static InputStream openFile(@Nonnull Path path, @Nonnull ReportReadMode readMode) throws IOException {
+        switch (readMode) {
+            case BUFFERED:
+                return new BufferedInputStream(Files.newInputStream(path), LARGE_BUFFER_SIZE);
+            case MAPPED:
+                return MappedInputStream.open(path);
+            default:
+                return Files.newInputStream(path);
+        }
+    }
+
+    /**
+     * Find the archive containing the report file, i.e. the closest ancestor that is a
+     * file rather than a directory.
+     */
+    @Nonnull
+    private static Optional<File> findArchive(@Nonnull File reportFile) {
+        for (File ancestor = reportFile.getParentFile(); null != ancestor; ancestor = ancestor.getParentFile()) {
+            if (ancestor.isDirectory()) {
+                return Optional.empty();
+            }
+
+            if (ancestor.isFile()) {
+                return ArchiveEntries.isArchive(ancestor.getName()) ? Optional.of(ancestor) : Optional.empty();
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Nonnull
+    private static String getEntryName(@Nonnull File archive, @Nonnull File reportFile) {
+        return archive.toPath()
+                .relativize(reportFile.toPath())
+                .toString()
+                .replace(File.separatorChar, '/');
+    }
+
+    @Nonnull
+    private static InputStream openEntry(@Nonnull File archive, @Nonnull File reportFile) throws IOException {
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            ZipEntry entry = zipFile.getEntry(getEntryName(archive, reportFile));
+            if (null == entry || entry.isDirectory()) {
+                throw new FileNotFoundException(reportFile.getPath());
+            }
+
+            return new ArchiveEntryInputStream(zipFile, zipFile.getInputStream(entry));
+        } catch (IOException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    @Nonnull
+    private static InputStream decompress(@Nonnull File reportFile, @Nonnull InputStream input) throws IOException {
+        if (!reportFile.getName().toLowerCase(Locale.ENGLISH).endsWith(GZIP_SUFFIX)) {
+            return input;
+        }
+
+        try {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stream for an archive entry, closing the archive together with the stream.
+     */
+    private static final class ArchiveEntryInputStream extends FilterInputStream {
+        private final ZipFile zipFile;
+
+        private ArchiveEntryInputStream(@Nonnull ZipFile zipFile, @Nonnull InputStream input) {
+            super(input);
+            this.zipFile = zipFile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                zipFile.close();
+            }
+        }
+    }
+}
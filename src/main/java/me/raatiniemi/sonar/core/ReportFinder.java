@@ -16,34 +16,96 @@
  */
 package me.raatiniemi.sonar.core;
 
-import org.apache.tools.ant.DirectoryScanner;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class ReportFinder implements ReportPatternFinder {
     private static final Logger LOGGER = Loggers.get(ReportFinder.class);
 
     private final File reportDirectory;
+    private final int parallelism;
+    private final ReportSearchOptions options;
 
-    private ReportFinder(@Nonnull File reportDirectory) {
+    private ReportFinder(@Nonnull File reportDirectory, int parallelism, @Nonnull ReportSearchOptions options) {
         this.reportDirectory = reportDirectory;
+        this.parallelism = parallelism;
+        this.options = options;
     }
 
     @Nonnull
     public static ReportPatternFinder create(@Nonnull File reportDirectory) {
-        return new ReportFinder(reportDirectory);
+        return create(reportDirectory, ReportSearchOptions.defaults());
+    }
+
+    /**
+     * Create report finder that skip excluded directories, and directories below the
+     * maximum depth, without entering them.
+     *
+     * @param reportDirectory Directory to search for reports.
+     * @param options Exclusions and maximum depth for the search.
+     * @return Report finder.
+     */
+    @Nonnull
+    public static ReportPatternFinder create(@Nonnull File reportDirectory, @Nonnull ReportSearchOptions options) {
+        return new ReportFinder(reportDirectory, 1, options);
+    }
+
+    /**
+     * Create report finder that split the search of the report directory across a
+     * fork/join pool.
+     * <p>
+     * The reports are found in the same order as with {@link #create(File)}.
+     *
+     * @param reportDirectory Directory to search for reports.
+     * @param parallelism Number of threads used for searching the report directory.
+     * @return Report finder.
+     */
+    @Nonnull
+    public static ReportPatternFinder createParallel(@Nonnull File reportDirectory, int parallelism) {
+        return createParallel(reportDirectory, parallelism, ReportSearchOptions.defaults());
+    }
+
+    @Nonnull
+    public static ReportPatternFinder createParallel(
+            @Nonnull File reportDirectory,
+            int parallelism,
+            @Nonnull ReportSearchOptions options
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least one");
+        }
+
+        return new ReportFinder(reportDirectory, parallelism, options);
     }
 
     @Nonnull
@@ -68,38 +130,176 @@ public final class ReportFinder implements ReportPatternFinder {
     }
 
     @Nonnull
-    private Stream<File> findMatching(@Nonnull String pattern) {
-        return getBasenameForMatchingFiles(pattern)
-                .map(prependBaseDirectoryPath())
-                .map(Path::toFile);
+    public Map<String, Set<File>> findReportsMatching(@Nonnull Collection<String> patterns) {
+        LOGGER.debug("Trying to find reports matching {} in {}", patterns, getReportDirectoryPath());
+
+        Map<String, Set<File>> reports = new LinkedHashMap<>();
+        findMatching(patterns).forEach((pattern, files) -> reports.put(pattern, new LinkedHashSet<>(files)));
+
+        return reports;
     }
 
+    /**
+     * Stream report files matching pattern, while the report directory is searched.
+     * <p>
+     * The search is always performed on the calling thread, i.e. it is not split across
+     * threads even if the report finder was created using {@link #createParallel(File, int)}.
+     *
+     * @param pattern Pattern to use for matching report files.
+     * @return Report files matching specified pattern.
+     */
     @Nonnull
-    private Stream<String> getBasenameForMatchingFiles(@Nonnull String pattern) {
+    public Stream<File> streamReportsMatching(@Nonnull String pattern) {
+        LOGGER.debug("Trying to stream reports matching {} in {}", pattern, getReportDirectoryPath());
+
         if (!reportDirectory.exists()) {
             LOGGER.warn("Report directory do not exsists {}", getReportDirectoryPath());
             return Stream.empty();
         }
 
-        DirectoryScanner scanner = new DirectoryScanner();
-        scanner.setIncludes(new String[]{pattern});
-        scanner.setBasedir(reportDirectory);
-        scanner.scan();
+        MatchingFileIterator iterator = MatchingFileIterator.create(
+                ReportPathPattern.compile(Collections.singletonList(pattern), options),
+                Paths.get(getReportDirectoryPath())
+        );
+        Spliterator<Path> spliterator = Spliterators.spliteratorUnknownSize(
+                iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+        );
+        return StreamSupport.stream(spliterator, false)
+                .onClose(iterator::close)
+                .map(Path::toFile);
+    }
 
-        String[] basenameForFiles = scanner.getIncludedFiles();
-        int numberOfFiles = basenameForFiles.length;
+    @Nonnull
+    private Stream<File> findMatching(@Nonnull String pattern) {
+        return findMatching(Collections.singletonList(pattern))
+                .get(pattern)
+                .stream();
+    }
 
-        if (numberOfFiles == 0) {
-            LOGGER.debug("No report(s) matching {} was found in {}", pattern, getReportDirectoryPath());
-            return Stream.empty();
+    @Nonnull
+    private Map<String, List<File>> findMatching(@Nonnull Collection<String> patterns) {
+        Map<String, List<File>> reports = new LinkedHashMap<>();
+        if (!reportDirectory.exists()) {
+            LOGGER.warn("Report directory do not exsists {}", getReportDirectoryPath());
+            patterns.forEach(pattern -> reports.put(pattern, Collections.emptyList()));
+            return reports;
+        }
+
+        ReportPathPattern pathPattern = ReportPathPattern.compile(new LinkedHashSet<>(patterns), options);
+        List<MatchingFile> matchingFiles = walkReportDirectory(pathPattern);
+
+        List<String> uniquePatterns = pathPattern.getPatterns();
+        for (int i = 0; i < uniquePatterns.size(); i++) {
+            String pattern = uniquePatterns.get(i);
+            List<File> files = filterMatchingFiles(matchingFiles, i);
+
+            int numberOfFiles = files.size();
+            if (numberOfFiles == 0) {
+                LOGGER.debug("No report(s) matching {} was found in {}", pattern, getReportDirectoryPath());
+            } else {
+                LOGGER.debug("Found {} report(s) matching {} in {}", numberOfFiles, pattern, getReportDirectoryPath());
+            }
+            reports.put(pattern, files);
         }
 
-        LOGGER.debug("Found {} report(s) matching {} in {}", numberOfFiles, pattern, getReportDirectoryPath());
-        return Arrays.stream(basenameForFiles);
+        return reports;
     }
 
     @Nonnull
-    private Function<String, Path> prependBaseDirectoryPath() {
-        return filename -> Paths.get(getReportDirectoryPath(), filename);
+    private static List<File> filterMatchingFiles(@Nonnull List<MatchingFile> matchingFiles, int patternIndex) {
+        List<File> files = new ArrayList<>();
+        for (MatchingFile matchingFile : matchingFiles) {
+            if (matchingFile.isMatching(patternIndex)) {
+                files.add(matchingFile.getPath().toFile());
+            }
+        }
+
+        return files;
+    }
+
+    @Nonnull
+    private List<MatchingFile> walkReportDirectory(@Nonnull ReportPathPattern pattern) {
+        if (parallelism > 1) {
+            return walkReportDirectoryInParallel(pattern);
+        }
+
+        MatchingFileVisitor visitor = new MatchingFileVisitor(pattern);
+        try {
+            Path start = Paths.get(getReportDirectoryPath());
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to search for reports in {}", getReportDirectoryPath(), e);
+        }
+
+        return visitor.matchingFiles;
+    }
+
+    @Nonnull
+    private List<MatchingFile> walkReportDirectoryInParallel(@Nonnull ReportPathPattern pattern) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(MatchingFileTask.create(pattern, Paths.get(getReportDirectoryPath())));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Collect files matching the patterns, skipping directories where nothing can match.
+     */
+    private static final class MatchingFileVisitor extends SimpleFileVisitor<Path> {
+        private final Deque<BitSet> states = new ArrayDeque<>();
+        private final List<MatchingFile> matchingFiles = new ArrayList<>();
+        private final ReportPathPattern pattern;
+
+        private MatchingFileVisitor(@Nonnull ReportPathPattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+            if (states.isEmpty()) {
+                states.push(pattern.initial());
+                return FileVisitResult.CONTINUE;
+            }
+
+            BitSet state = pattern.next(states.peek(), directory.getFileName().toString());
+            if (state.isEmpty()) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            states.push(state);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+            if (states.isEmpty() || attributes.isDirectory()) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            String name = file.getFileName().toString();
+            BitSet matchingPatterns = pattern.matchingPatterns(states.peek(), name);
+            if (!matchingPatterns.isEmpty()) {
+                matchingFiles.add(MatchingFile.from(file, matchingPatterns));
+            }
+            if (pattern.isSearchableArchive(name)) {
+                matchingFiles.addAll(ArchiveEntries.findMatching(pattern, states.peek(), file));
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            LOGGER.debug("Unable to search for reports in {}", file, e);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+            states.pop();
+            return FileVisitResult.CONTINUE;
+        }
     }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Ant style path patterns, e.g. {@code **}{@code /reports/*.xml}, matched one path
+ * segment at a time.
+ * <p>
+ * Each segment of the patterns with wildcards, except for {@code *} and {@code **}, is
+ * compiled into a {@link Pattern} once, and matched against the name of the entry.
+ * <p>
+ * While walking a directory tree, the walk keeps a state for each directory, i.e. the
+ * positions in the patterns that the directory path could have reached. When no position
+ * is left, nothing below the directory can match and the subtree can be skipped.
+ * <p>
+ * Multiple patterns are compiled into the same set of positions, so that a single walk
+ * can match all of them. Exclusions are compiled into positions following the patterns,
+ * and a directory matching an exclusion, or below the maximum depth, is skipped in the
+ * same way as a directory where nothing can match. The depth of a directory is kept as
+ * a single position following the exclusions.
+ */
+final class ReportPathPattern {
+    private static final String ANY_DIRECTORIES = "**";
+    private static final String ANY_NAME = "*";
+
+    private final List<String> patterns;
+    private final BitSet initial;
+    private final int numberOfPatternPositions;
+    private final int maxDepth;
+    private final boolean searchArchives;
+
+    /**
+     * Segment for each position, {@code null} marks the end of a pattern.
+     */
+    private final Segment[] segments;
+    private final int[] patternIndexes;
+    private final boolean[] acceptsFrom;
+
+    private ReportPathPattern(
+            @Nonnull List<String> patterns,
+            @Nonnull List<Segment> segments,
+            @Nonnull int[] patternIndexes,
+            int numberOfPatternPositions,
+            int maxDepth,
+            boolean searchArchives
+    ) {
+        this.patterns = patterns;
+        this.segments = segments.toArray(new Segment[0]);
+        this.patternIndexes = patternIndexes;
+        this.numberOfPatternPositions = numberOfPatternPositions;
+        this.maxDepth = maxDepth;
+        this.searchArchives = searchArchives;
+
+        acceptsFrom = new boolean[this.segments.length];
+        for (int i = this.segments.length - 1; i >= 0; i--) {
+            Segment segment = this.segments[i];
+            acceptsFrom[i] = null == segment || segment.anyDirectories && acceptsFrom[i + 1];
+        }
+
+        initial = new BitSet(this.segments.length);
+        for (int i = 0; i < this.segments.length; i++) {
+            if (i == 0 || null == this.segments[i - 1]) {
+                initial.set(i);
+            }
+        }
+        initial.set(this.segments.length);
+        closure(initial);
+    }
+
+    @Nonnull
+    static ReportPathPattern compile(@Nonnull String pattern) {
+        return compile(Collections.singletonList(pattern));
+    }
+
+    @Nonnull
+    static ReportPathPattern compile(@Nonnull Collection<String> patterns) {
+        return compile(patterns, ReportSearchOptions.defaults());
+    }
+
+    @Nonnull
+    static ReportPathPattern compile(@Nonnull Collection<String> patterns, @Nonnull ReportSearchOptions options) {
+        List<Segment> segments = new ArrayList<>();
+        List<Integer> patternIndexes = new ArrayList<>();
+
+        int patternIndex = 0;
+        for (String pattern : patterns) {
+            compile(pattern, patternIndex, segments, patternIndexes);
+            patternIndex++;
+        }
+
+        int numberOfPatternPositions = segments.size();
+        for (String exclusion : options.getExclusions()) {
+            compile(exclusion, -1, segments, patternIndexes);
+        }
+
+        return new ReportPathPattern(
+                new ArrayList<>(patterns),
+                segments,
+                patternIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                numberOfPatternPositions,
+                options.getMaxDepth(),
+                options.isSearchingArchives()
+        );
+    }
+
+    private static void compile(
+            @Nonnull String pattern,
+            int patternIndex,
+            @Nonnull List<Segment> segments,
+            @Nonnull List<Integer> patternIndexes
+    ) {
+        for (String part : normalize(pattern).split("/", -1)) {
+            segments.add(Segment.compile(part));
+            patternIndexes.add(patternIndex);
+        }
+        segments.add(null);
+        patternIndexes.add(patternIndex);
+    }
+
+    @Nonnull
+    private static String normalize(@Nonnull String pattern) {
+        String normalizedPattern = pattern.replace('\\', '/');
+        if (normalizedPattern.endsWith("/")) {
+            normalizedPattern += ANY_DIRECTORIES;
+        }
+
+        return normalizedPattern;
+    }
+
+    @Nonnull
+    List<String> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * State for the directory that the patterns are relative to.
+     *
+     * @return Initial state.
+     */
+    @Nonnull
+    BitSet initial() {
+        return (BitSet) initial.clone();
+    }
+
+    /**
+     * Check if the entries of a file should be searched as if the file was a directory.
+     *
+     * @param name Name of the file.
+     * @return true if the file is an archive and archives should be searched, otherwise false.
+     */
+    boolean isSearchableArchive(@Nonnull String name) {
+        return searchArchives && ArchiveEntries.isArchive(name);
+    }
+
+    /**
+     * State for a directory within the directory of the current state.
+     *
+     * @param state State of the parent directory.
+     * @param name Name of the directory.
+     * @return State of the directory, empty if nothing within the directory can match.
+     */
+    @Nonnull
+    BitSet next(@Nonnull BitSet state, @Nonnull String name) {
+        int depth = state.nextSetBit(segments.length) - segments.length;
+        if (depth >= maxDepth || isExcluded(state, name)) {
+            return new BitSet();
+        }
+
+        BitSet next = new BitSet(segments.length);
+        for (int i = state.nextSetBit(0); i >= 0 && i < segments.length; i = state.nextSetBit(i + 1)) {
+            Segment segment = segments[i];
+            if (segment.anyDirectories) {
+                next.set(i);
+                continue;
+            }
+
+            if (null != segments[i + 1] && segment.matches(name)) {
+                next.set(i + 1);
+            }
+        }
+
+        int nextPosition = next.nextSetBit(0);
+        if (nextPosition < 0 || nextPosition >= numberOfPatternPositions) {
+            return new BitSet();
+        }
+
+        next.set(segments.length + depth + 1);
+        return closure(next);
+    }
+
+    /**
+     * Check if a path is matched by any of the patterns.
+     *
+     * @param state State of the parent directory.
+     * @param name Name of the file or directory.
+     * @return true if the path is matched by any of the patterns, otherwise false.
+     */
+    boolean matches(@Nonnull BitSet state, @Nonnull String name) {
+        if (isExcluded(state, name)) {
+            return false;
+        }
+
+        for (int i = state.nextSetBit(0); i >= 0 && i < numberOfPatternPositions; i = state.nextSetBit(i + 1)) {
+            if (matches(i, name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the patterns that match a path.
+     *
+     * @param state State of the parent directory.
+     * @param name Name of the file or directory.
+     * @return Index of the patterns that match the path.
+     */
+    @Nonnull
+    BitSet matchingPatterns(@Nonnull BitSet state, @Nonnull String name) {
+        BitSet matchingPatterns = new BitSet(patterns.size());
+        if (isExcluded(state, name)) {
+            return matchingPatterns;
+        }
+
+        for (int i = state.nextSetBit(0); i >= 0 && i < numberOfPatternPositions; i = state.nextSetBit(i + 1)) {
+            if (matches(i, name)) {
+                matchingPatterns.set(patternIndexes[i]);
+            }
+        }
+
+        return matchingPatterns;
+    }
+
+    private boolean isExcluded(@Nonnull BitSet state, @Nonnull String name) {
+        for (int i = state.nextSetBit(numberOfPatternPositions); i >= 0 && i < segments.length; i = state.nextSetBit(i + 1)) {
+            if (matches(i, name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matches(int position, @Nonnull String name) {
+        Segment segment = segments[position];
+        if (segment.anyDirectories) {
+            return acceptsFrom[position];
+        }
+
+        return acceptsFrom[position + 1] && segment.matches(name);
+    }
+
+    @Nonnull
+    private BitSet closure(@Nonnull BitSet state) {
+        for (int i = state.nextSetBit(0); i >= 0 && i < segments.length; i = state.nextSetBit(i + 1)) {
+            if (segments[i].anyDirectories && null != segments[i + 1]) {
+                state.set(i + 1);
+            }
+        }
+
+        return state;
+    }
+
+    private static final class Segment {
+        private final String literal;
+        private final Pattern pattern;
+        private final boolean anyName;
+        private final boolean anyDirectories;
+
+        private Segment(String literal, Pattern pattern, boolean anyName, boolean anyDirectories) {
+            this.literal = literal;
+            this.pattern = pattern;
+            this.anyName = anyName;
+            this.anyDirectories = anyDirectories;
+        }
+
+        @Nonnull
+        private static Segment compile(@Nonnull String segment) {
+            if (ANY_DIRECTORIES.equals(segment)) {
+                return new Segment(null, null, true, true);
+            }
+
+            if (ANY_NAME.equals(segment)) {
+                return new Segment(null, null, true, false);
+            }
+
+            if (segment.indexOf('*') < 0 && segment.indexOf('?') < 0) {
+                return new Segment(segment, null, false, false);
+            }
+
+            return new Segment(null, Pattern.compile(toRegex(segment), Pattern.DOTALL), false, false);
+        }
+
+        /**
+         * Translate the wildcards of a segment into a regular expression, where {@code *}
+         * matches any number of characters and {@code ?} matches a single character, and
+         * every other character is matched literally.
+         */
+        @Nonnull
+        private static String toRegex(@Nonnull String segment) {
+            StringBuilder regex = new StringBuilder(segment.length() * 2);
+            StringBuilder literal = new StringBuilder();
+            for (char c : segment.toCharArray()) {
+                if ('*' != c && '?' != c) {
+                    literal.append(c);
+                    continue;
+                }
+
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append('*' == c ? ".*" : ".");
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+
+            return regex.toString();
+        }
+
+        private boolean matches(@Nonnull String name) {
+            if (anyName) {
+                return true;
+            }
+
+            if (null != literal) {
+                return literal.equals(name);
+            }
+
+            return pattern.matcher(name).matches();
+        }
+    }
+}
@@ -18,8 +18,12 @@ package me.raatiniemi.sonar.core;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Collect report files matching defined pattern.
@@ -34,6 +38,40 @@ public interface ReportPatternFinder {
     @Nonnull
     Set<File> findReportsMatching(@Nonnull String pattern);
 
+    /**
+     * Find multiple report files matching any of the patterns.
+     * <p>
+     * The default implementation search for each pattern separately, implementations
+     * should override it if all patterns can be matched with a single search.
+     *
+     * @param patterns Patterns to use for matching report files.
+     * @return Report files matching each of the specified patterns.
+     */
+    @Nonnull
+    default Map<String, Set<File>> findReportsMatching(@Nonnull Collection<String> patterns) {
+        Map<String, Set<File>> reports = new LinkedHashMap<>();
+        for (String pattern : patterns) {
+            reports.put(pattern, findReportsMatching(pattern));
+        }
+
+        return reports;
+    }
+
+    /**
+     * Stream report files matching pattern.
+     * <p>
+     * The default implementation find all report files before the first is returned,
+     * implementations should override it if report files can be returned as they are found.
+     * The stream should be closed if it is not consumed completely.
+     *
+     * @param pattern Pattern to use for matching report files.
+     * @return Report files matching specified pattern.
+     */
+    @Nonnull
+    default Stream<File> streamReportsMatching(@Nonnull String pattern) {
+        return findReportsMatching(pattern).stream();
+    }
+
     /**
      * Find first report file matching pattern.
      *
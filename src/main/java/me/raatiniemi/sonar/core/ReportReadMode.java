@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+/**
+ * How the content of a report file is read by {@link ReportFiles}.
+ * <p>
+ * Reports within archives are always read from the archive entry, regardless of the mode.
+ */
+public enum ReportReadMode {
+    /**
+     * Input stream of the file, buffered by the consumer of the stream.
+     */
+    STREAM,
+    /**
+     * File channel read into a large buffer, i.e. fewer but larger reads from the file.
+     */
+    BUFFERED,
+    /**
+     * File mapped into memory one region at a time, paged in by the operating system.
+     */
+    MAPPED
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * Parse report files and pass each record to a consumer as soon as it have been read.
+ *
+ * @param <T> Type of the report records.
+ */
+public interface ReportRecordParser<T> {
+    /**
+     * Parse report file, passing each record to the consumer.
+     * <p>
+     * If the report is malformed, records read before the malformed part of the report
+     * have already been passed to the consumer.
+     *
+     * @param reportFile Report file to parse.
+     * @param consumer Consumer for the parsed records.
+     * @return true if the whole report was parsed, otherwise false.
+     */
+    boolean parse(@Nonnull File reportFile, @Nonnull Consumer<T> consumer);
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Limits for searching a report directory.
+ * <p>
+ * Exclusions are Ant style patterns, relative to the report directory, e.g.
+ * {@code **}{@code /node_modules}. A directory matching an exclusion is never entered, and
+ * a file matching an exclusion is never reported. The maximum depth is the number of
+ * directory levels below the report directory that are searched, i.e. with a maximum
+ * depth of zero only the files directly within the report directory are searched.
+ * <p>
+ * When searching archives, the entries of each {@code .zip} archive are matched as if the
+ * archive was a directory, e.g. {@code **}{@code /*.xml} matches {@code build/reports.zip/report.xml}.
+ */
+public final class ReportSearchOptions {
+    private static final ReportSearchOptions DEFAULT = new ReportSearchOptions(Collections.emptyList(), Integer.MAX_VALUE, false);
+
+    private final List<String> exclusions;
+    private final int maxDepth;
+    private final boolean searchArchives;
+
+    private ReportSearchOptions(@Nonnull List<String> exclusions, int maxDepth, boolean searchArchives) {
+        this.exclusions = exclusions;
+        this.maxDepth = maxDepth;
+        this.searchArchives = searchArchives;
+    }
+
+    @Nonnull
+    public static ReportSearchOptions create(@Nonnull Collection<String> exclusions, int maxDepth) {
+        return create(exclusions, maxDepth, false);
+    }
+
+    @Nonnull
+    public static ReportSearchOptions create(
+            @Nonnull Collection<String> exclusions,
+            int maxDepth,
+            boolean searchArchives
+    ) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth can not be negative");
+        }
+
+        List<String> uniqueExclusions = new ArrayList<>(new LinkedHashSet<>(exclusions));
+        return new ReportSearchOptions(Collections.unmodifiableList(uniqueExclusions), maxDepth, searchArchives);
+    }
+
+    /**
+     * Search without any exclusions or depth limit.
+     *
+     * @return Default search options.
+     */
+    @Nonnull
+    public static ReportSearchOptions defaults() {
+        return DEFAULT;
+    }
+
+    @Nonnull
+    public List<String> getExclusions() {
+        return exclusions;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public boolean isSearchingArchives() {
+        return searchArchives;
+    }
+}
@@ -17,21 +17,52 @@
 
 package me.raatiniemi.sonar.core;
 
+import me.raatiniemi.sonar.core.store.RecordCodec;
+import me.raatiniemi.sonar.core.store.RecordStore;
+import me.raatiniemi.sonar.core.store.RecordStoreType;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public abstract class ReportSensor implements Sensor {
     private static final Logger LOGGER = Loggers.get(ReportSensor.class);
 
+    private static final int DEFAULT_CACHE_MAX_AGE_IN_DAYS = 7;
+    private static final int DEFAULT_CACHE_MAX_SIZE_IN_MEGABYTES = 256;
+
     private final Configuration configuration;
+    private final ReportFileIndex reportFileIndex;
+
+    private ReportCache reportCache;
+    private boolean reportCacheCreated;
 
     protected ReportSensor(@Nonnull Configuration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * @param configuration Configuration for the analysis.
+     * @param reportFileIndex Index shared by the sensors, used when searching for reports.
+     */
+    protected ReportSensor(@Nonnull Configuration configuration, @Nullable ReportFileIndex reportFileIndex) {
         this.configuration = configuration;
+        this.reportFileIndex = reportFileIndex;
+    }
+
+    @Nonnull
+    protected Configuration getConfiguration() {
+        return configuration;
     }
 
     @Nonnull
@@ -47,6 +78,232 @@ public abstract class ReportSensor implements Sensor {
         return getDefaultReportPath();
     }
 
+    /**
+     * Create report finder for directory.
+     * <p>
+     * If the sensor was created with a {@link ReportFileIndex}, the report finder is
+     * backed by the index. The search use the exclusions and maximum depth from
+     * {@link #readReportSearchOptions()}.
+     *
+     * @param reportDirectory Directory to search for reports.
+     * @return Report finder for the directory.
+     */
+    @Nonnull
+    protected ReportPatternFinder createReportFinder(@Nonnull File reportDirectory) {
+        ReportSearchOptions options = readReportSearchOptions();
+        if (null != reportFileIndex) {
+            return reportFileIndex.forDirectory(reportDirectory, options);
+        }
+
+        return ReportFinder.create(reportDirectory, options);
+    }
+
+    /**
+     * Skip reports with the same content as an earlier report in the stream, if enabled
+     * by {@link #getReportDeduplicationKey()}.
+     *
+     * @param reportFiles Report files to filter.
+     * @return Report files with distinct content.
+     */
+    @Nonnull
+    protected Stream<File> filterDuplicateReports(@Nonnull Stream<File> reportFiles) {
+        String deduplicationKey = getReportDeduplicationKey();
+        if (!configuration.getBoolean(deduplicationKey).orElse(false)) {
+            return reportFiles;
+        }
+
+        LOGGER.debug("Found report deduplication for configuration key {}", deduplicationKey);
+        return reportFiles.filter(DuplicateReportFilter.create());
+    }
+
+    @Nonnull
+    protected String getReportDeduplicationKey() {
+        return getReportPathKey() + ".deduplicate";
+    }
+
+    @Nonnull
+    protected ReportSearchOptions readReportSearchOptions() {
+        String exclusionsKey = getReportExclusionsKey();
+        String[] exclusions = configuration.getStringArray(exclusionsKey);
+        if (exclusions.length > 0) {
+            LOGGER.debug("Found report exclusions for configuration key {}", exclusionsKey);
+        }
+
+        String maxDepthKey = getReportMaxDepthKey();
+        int maxDepth = Integer.MAX_VALUE;
+        Optional<Integer> value = configuration.getInt(maxDepthKey);
+        if (value.isPresent() && value.get() >= 0) {
+            LOGGER.debug("Found report max depth for configuration key {}", maxDepthKey);
+            maxDepth = value.get();
+        }
+
+        String archivesKey = getReportArchivesKey();
+        boolean searchArchives = configuration.getBoolean(archivesKey).orElse(false);
+        if (searchArchives) {
+            LOGGER.debug("Found search of report archives for configuration key {}", archivesKey);
+        }
+
+        return ReportSearchOptions.create(Arrays.asList(exclusions), maxDepth, searchArchives);
+    }
+
+    /**
+     * Create store for parsed records, kept as configured by {@link #getRecordStoreKey()}.
+     *
+     * @param codec Codec for reading and writing the records.
+     * @param workDirectory Directory for temporary files, e.g. the work directory of the file system.
+     * @param <T> Type of the record.
+     * @return Record store, should be closed once the records have been read.
+     */
+    @Nonnull
+    protected <T> RecordStore<T> createRecordStore(@Nonnull RecordCodec<T> codec, @Nonnull File workDirectory) {
+        return RecordStore.create(codec, readRecordStoreType(), workDirectory);
+    }
+
+    @Nonnull
+    private RecordStoreType readRecordStoreType() {
+        String recordStoreKey = getRecordStoreKey();
+        Optional<String> value = configuration.get(recordStoreKey);
+        if (!value.isPresent()) {
+            return RecordStoreType.HEAP;
+        }
+
+        try {
+            RecordStoreType type = RecordStoreType.valueOf(value.get().trim().toUpperCase(Locale.ENGLISH));
+            LOGGER.debug("Found record store for configuration key {}", recordStoreKey);
+            return type;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unknown record store {} for configuration key {}, using heap", value.get(), recordStoreKey);
+            return RecordStoreType.HEAP;
+        }
+    }
+
+    /**
+     * Read how report files should be read by the parsers, configured by
+     * {@link #getReportReadModeKey()}.
+     *
+     * @return Read mode for the report files, the stream is used if not configured.
+     */
+    @Nonnull
+    protected ReportReadMode readReportReadMode() {
+        String readModeKey = getReportReadModeKey();
+        Optional<String> value = configuration.get(readModeKey);
+        if (!value.isPresent()) {
+            return ReportReadMode.STREAM;
+        }
+
+        try {
+            ReportReadMode readMode = ReportReadMode.valueOf(value.get().trim().toUpperCase(Locale.ENGLISH));
+            LOGGER.debug("Found report read mode for configuration key {}", readModeKey);
+            return readMode;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unknown read mode {} for configuration key {}, using stream", value.get(), readModeKey);
+            return ReportReadMode.STREAM;
+        }
+    }
+
+    /**
+     * Wrap report parser with the report cache, if enabled by {@link #getReportCacheKey()}.
+     * <p>
+     * The cache is kept in the directory configured by {@link #getReportCacheDirectoryKey()},
+     * or within the work directory. Since the scanner clears its work directory before each
+     * analysis, the cache directory should be configured for results to be reused.
+     *
+     * @param parser Parser for the reports.
+     * @param codec Codec for writing the parsed result to the cache.
+     * @param workDirectory Work directory of the file system.
+     * @param <T> Type of the parsed result.
+     * @return Report parser using the report cache, or the parser if the cache is disabled.
+     */
+    @Nonnull
+    protected <T> ReportParser<T> createCachingReportParser(
+            @Nonnull ReportParser<T> parser,
+            @Nonnull RecordCodec<T> codec,
+            @Nonnull File workDirectory
+    ) {
+        ReportCache value = getReportCache(workDirectory);
+        if (null == value) {
+            return parser;
+        }
+
+        return CachingReportParser.create(parser, value, codec);
+    }
+
+    @CheckForNull
+    private synchronized ReportCache getReportCache(@Nonnull File workDirectory) {
+        if (reportCacheCreated) {
+            return reportCache;
+        }
+
+        reportCacheCreated = true;
+        if (!configuration.getBoolean(getReportCacheKey()).orElse(false)) {
+            return null;
+        }
+
+        File directory = configuration.get(getReportCacheDirectoryKey())
+                .map(File::new)
+                .orElseGet(() -> new File(workDirectory, "report-cache"));
+        long maxAge = TimeUnit.DAYS.toMillis(readPositiveInt(getReportCacheMaxAgeKey(), DEFAULT_CACHE_MAX_AGE_IN_DAYS));
+        long maxSize = readPositiveInt(getReportCacheMaxSizeKey(), DEFAULT_CACHE_MAX_SIZE_IN_MEGABYTES) * 1024L * 1024L;
+        LOGGER.debug("Using report cache in {}", directory);
+
+        reportCache = ReportCache.create(new File(directory, getReportPathKey()), maxAge, maxSize).orElse(null);
+        return reportCache;
+    }
+
+    private int readPositiveInt(@Nonnull String key, int defaultValue) {
+        Optional<Integer> value = configuration.getInt(key);
+        if (value.isPresent() && value.get() > 0) {
+            return value.get();
+        }
+
+        return defaultValue;
+    }
+
+    @Nonnull
+    protected String getReportCacheKey() {
+        return getReportPathKey() + ".cache";
+    }
+
+    @Nonnull
+    protected String getReportCacheDirectoryKey() {
+        return getReportPathKey() + ".cacheDirectory";
+    }
+
+    @Nonnull
+    protected String getReportCacheMaxAgeKey() {
+        return getReportPathKey() + ".cacheMaxAge";
+    }
+
+    @Nonnull
+    protected String getReportCacheMaxSizeKey() {
+        return getReportPathKey() + ".cacheMaxSize";
+    }
+
+    @Nonnull
+    protected String getRecordStoreKey() {
+        return getReportPathKey() + ".recordStore";
+    }
+
+    @Nonnull
+    protected String getReportExclusionsKey() {
+        return getReportPathKey() + ".exclusions";
+    }
+
+    @Nonnull
+    protected String getReportMaxDepthKey() {
+        return getReportPathKey() + ".maxDepth";
+    }
+
+    @Nonnull
+    protected String getReportArchivesKey() {
+        return getReportPathKey() + ".archives";
+    }
+
+    @Nonnull
+    protected String getReportReadModeKey() {
+        return getReportPathKey() + ".readMode";
+    }
+
     @Nonnull
     protected abstract String getReportPathKey();
 
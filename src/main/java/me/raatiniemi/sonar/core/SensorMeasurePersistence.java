@@ -18,7 +18,44 @@ package me.raatiniemi.sonar.core;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 public interface SensorMeasurePersistence<T> {
     void saveMeasures(@Nonnull Collection<T> measures);
+
+    /**
+     * Save measures as they are read from the iterator, without collecting them first.
+     *
+     * @param measures Measures to save.
+     */
+    default void saveMeasures(@Nonnull Iterator<T> measures) {
+        try (MeasureSink<T> sink = openSink()) {
+            measures.forEachRemaining(sink);
+        }
+    }
+
+    /**
+     * Save measures as they are read from the stream, the stream is closed once consumed.
+     *
+     * @param measures Measures to save.
+     */
+    default void saveMeasures(@Nonnull Stream<T> measures) {
+        try (Stream<T> stream = measures; MeasureSink<T> sink = openSink()) {
+            stream.forEachOrdered(sink);
+        }
+    }
+
+    /**
+     * Open sink for saving measures one at a time.
+     * <p>
+     * By default the measures are passed on to {@link #saveMeasures(Collection)} in
+     * small batches.
+     *
+     * @return Sink for the measures.
+     */
+    @Nonnull
+    default MeasureSink<T> openSink() {
+        return BatchingMeasureSink.create(this, 1000);
+    }
 }
@@ -19,19 +19,71 @@ package me.raatiniemi.sonar.core;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public abstract class SensorPersistence<T> implements SensorMeasurePersistence<T> {
     private static final Logger LOGGER = Loggers.get(SensorPersistence.class);
 
+    private final Map<String, Optional<InputFile>> inputFiles = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> supportedLanguages = new ConcurrentHashMap<>();
     private final SensorContext context;
+    private final Predicate<String> languageFilter;
 
+    private InputFileIndex inputFileIndex;
+
+    /**
+     * Create persistence accepting input files of the Objective-C language.
+     *
+     * @param context Context for the sensor.
+     */
     protected SensorPersistence(@Nonnull SensorContext context) {
+        this(context, language -> language.toLowerCase().contains("objc"));
+    }
+
+    /**
+     * @param context Context for the sensor.
+     * @param languages Key of the languages for which input files are accepted.
+     */
+    protected SensorPersistence(@Nonnull SensorContext context, @Nonnull Set<String> languages) {
+        this(context, new HashSet<>(languages)::contains);
+    }
+
+    private SensorPersistence(@Nonnull SensorContext context, @Nonnull Predicate<String> languageFilter) {
         this.context = context;
+        this.languageFilter = languageFilter;
+    }
+
+    /**
+     * Get the preparer for saving measures individually, if the subclass have opted into
+     * it by implementing {@link MeasurePreparer}.
+     *
+     * @return Preparer, or empty if measures can not be saved individually.
+     */
+    @Nonnull
+    private Optional<MeasurePreparer<T>> getMeasurePreparer() {
+        if (!(this instanceof MeasurePreparer)) {
+            return Optional.empty();
+        }
+
+        @SuppressWarnings("unchecked")
+        MeasurePreparer<T> preparer = (MeasurePreparer<T>) this;
+        return Optional.of(preparer);
     }
 
     @Nonnull
@@ -39,9 +91,50 @@ public abstract class SensorPersistence<T> implements SensorMeasurePersistence<T
         return context;
     }
 
+    /**
+     * Create buffer for saving measures in bulk, the buffer should be closed once all
+     * measures have been added.
+     *
+     * @return Measure buffer.
+     */
+    @Nonnull
+    protected MeasureBuffer createMeasureBuffer() {
+        return MeasureBuffer.create(context);
+    }
+
     @Nonnull
     protected Optional<InputFile> buildInputFile(@Nonnull FilePredicate filePredicate, @Nonnull String name) {
         InputFile inputFile = context.fileSystem().inputFile(filePredicate);
+
+        return filterInputFile(inputFile, name);
+    }
+
+    /**
+     * Build input file from its relative or absolute path.
+     * <p>
+     * The input files are indexed by path the first time this method is called, and the
+     * outcome for each path is cached, i.e. a path without an input file, or with an input
+     * file of an unsupported language, is only resolved and logged once.
+     *
+     * @param path Relative or absolute path of the input file.
+     * @return Input file, or empty if no input file with a supported language is available.
+     */
+    @Nonnull
+    protected Optional<InputFile> buildInputFile(@Nonnull String path) {
+        return inputFiles.computeIfAbsent(path, key -> filterInputFile(getInputFileIndex().find(key), key));
+    }
+
+    @Nonnull
+    private synchronized InputFileIndex getInputFileIndex() {
+        if (null == inputFileIndex) {
+            inputFileIndex = InputFileIndex.create(context.fileSystem());
+        }
+
+        return inputFileIndex;
+    }
+
+    @Nonnull
+    private Optional<InputFile> filterInputFile(@Nullable InputFile inputFile, @Nonnull String name) {
         if (null == inputFile) {
             LOGGER.warn("No path available for {}", name);
             return Optional.empty();
@@ -53,11 +146,153 @@ public abstract class SensorPersistence<T> implements SensorMeasurePersistence<T
             return Optional.empty();
         }
 
-        if (!language.toLowerCase().contains("objc")) {
+        if (!isSupportedLanguage(language)) {
             LOGGER.debug("{} belong to language {}", name, language);
             return Optional.empty();
         }
 
         return Optional.of(inputFile);
     }
+
+    /**
+     * Check if input files of a language are accepted, the decision is only made once
+     * for each language.
+     *
+     * @param language Key of the language.
+     * @return true if input files of the language are accepted, otherwise false.
+     */
+    private boolean isSupportedLanguage(@Nonnull String language) {
+        return supportedLanguages.computeIfAbsent(language, languageFilter::test);
+    }
+
+    /**
+     * Open sink where each measure is prepared using
+     * {@link MeasurePreparer#prepare(Object, MeasureBuffer)}, with a single measure buffer
+     * for every measure accepted by the sink.
+     * <p>
+     * Unless the subclass implements {@link MeasurePreparer}, the measures are passed on
+     * to {@link #saveMeasures(java.util.Collection)} in batches, so that the measures for a
+     * file can still be combined by the subclass.
+     *
+     * @return Sink for the measures.
+     */
+    @Nonnull
+    @Override
+    public MeasureSink<T> openSink() {
+        Optional<MeasurePreparer<T>> measurePreparer = getMeasurePreparer();
+        if (!measurePreparer.isPresent()) {
+            return SensorMeasurePersistence.super.openSink();
+        }
+
+        MeasurePreparer<T> preparer = measurePreparer.get();
+        MeasureBuffer measureBuffer = createMeasureBuffer();
+        return new MeasureSink<T>() {
+            @Override
+            public void accept(@Nonnull T measure) {
+                preparer.prepare(measure, measureBuffer);
+            }
+
+            @Override
+            public void close() {
+                measureBuffer.close();
+            }
+        };
+    }
+
+    /**
+     * Save measures where the measures are prepared in parallel.
+     * <p>
+     * The measures are split into chunks, and each chunk is prepared using the preparer on
+     * a pool of worker threads, i.e. the input files are resolved and the values are built
+     * by the workers. The prepared measures are then saved on the calling thread, in the
+     * same order as the measures, since the sensor context is not thread safe.
+     * <p>
+     * The preparer must be thread safe, and must only use the sensor context for looking
+     * up input files. If the preparation of any measure fails, or is interrupted, none of
+     * the measures are saved, and a failure is thrown from this method.
+     *
+     * @param measures Measures to save.
+     * @param preparer Preparer adding each measure to a measure buffer.
+     * @param parallelism Number of threads used for preparing the measures.
+     */
+    protected final void saveMeasuresInParallel(
+            @Nonnull List<T> measures,
+            @Nonnull MeasurePreparer<T> preparer,
+            int parallelism
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least one");
+        }
+
+        int chunkSize = Math.max(1, measures.size() / (parallelism * 4));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < measures.size(); i += chunkSize) {
+            chunks.add(measures.subList(i, Math.min(i + chunkSize, measures.size())));
+        }
+
+        LOGGER.debug("Preparing {} measure(s) using {} thread(s)", measures.size(), parallelism);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (MeasureBuffer measureBuffer = createMeasureBuffer()) {
+            List<MeasureBuffer> preparedMeasures = pool.submit(() -> chunks.parallelStream()
+                    .map(chunk -> prepareMeasures(chunk, preparer))
+                    .collect(Collectors.toList())
+            ).get();
+
+            preparedMeasures.forEach(preparedMeasure -> preparedMeasure.drainTo(measureBuffer));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Preparation of measures was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException("Unable to prepare measures", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Nonnull
+    private static <T> MeasureBuffer prepareMeasures(@Nonnull List<T> measures, @Nonnull MeasurePreparer<T> preparer) {
+        MeasureBuffer measureBuffer = MeasureBuffer.createDetached();
+        measures.forEach(measure -> preparer.prepare(measure, measureBuffer));
+
+        return measureBuffer;
+    }
+
+    /**
+     * Save line coverage for input file, lines beyond the end of the file are skipped.
+     * <p>
+     * Must be called from the thread that the sensor is executed on.
+     *
+     * @param inputFile Input file for the coverage.
+     * @param lineHits Number of hits for each line.
+     */
+    protected final void saveCoverage(@Nonnull InputFile inputFile, @Nonnull LineHits lineHits) {
+        if (lineHits.isEmpty()) {
+            return;
+        }
+
+        NewCoverage coverage = context.newCoverage().onFile(inputFile);
+        int numberOfLines = inputFile.lines();
+        int[] skippedLines = new int[1];
+        lineHits.forEach((line, hits) -> {
+            if (line > numberOfLines) {
+                skippedLines[0]++;
+                return;
+            }
+
+            coverage.lineHits(line, hits);
+        });
+
+        if (skippedLines[0] > 0) {
+            LOGGER.debug("Skipped {} line(s) beyond the end of {}", skippedLines[0], inputFile);
+        }
+        coverage.save();
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Parsed reports shared by every module during the analysis.
+ * <p>
+ * In a multi-module analysis the same report is usually found by the sensor of each
+ * module. The store parse each report once, indexes the records by the absolute path of
+ * the file they belong to, and returns the records within the base directory of the
+ * module asking for them, excluding the records within the base directories of its child
+ * modules.
+ * <p>
+ * The parsed reports are kept until they are released, so the sensor of the last module
+ * to be analyzed, i.e. the root module, should {@link #release(File)} the report when done.
+ * <p>
+ * Register the store as an extension of the plugin, and let the sensors receive it
+ * through their constructor.
+ */
+@ScannerSide
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public final class SharedReportStore {
+    private static final Logger LOGGER = Loggers.get(SharedReportStore.class);
+
+    private final Map<Key, NavigableMap<String, List<Object>>> reports = new ConcurrentHashMap<>();
+
+    /**
+     * Find records within the module base directory, parsing the report the first time
+     * it is requested.
+     * <p>
+     * The parsed records are shared by the calls with the same cache key, report and base
+     * directory, i.e. the cache key must identify the parser and the path function, e.g.
+     * the key of the report path setting for the sensor.
+     *
+     * @param cacheKey Key identifying the parser and the path function of the caller.
+     * @param reportFile Report to parse.
+     * @param parser Parser for the records in the report.
+     * @param pathOf Path of the file that a record belong to, relative paths are
+     *               resolved against the base directory.
+     * @param baseDirectory Directory used for resolving relative paths, e.g. the base
+     *                      directory of the root module.
+     * @param moduleBaseDirectory Base directory of the module.
+     * @param childModuleBaseDirectories Base directories of the child modules, records
+     *                                   within them belong to the child modules.
+     * @param <R> Type of the record.
+     * @return Records for files within the module base directory, in report order for each file.
+     */
+    @Nonnull
+    public <R> List<R> findRecords(
+            @Nonnull String cacheKey,
+            @Nonnull File reportFile,
+            @Nonnull ReportRecordParser<R> parser,
+            @Nonnull Function<R, String> pathOf,
+            @Nonnull File baseDirectory,
+            @Nonnull File moduleBaseDirectory,
+            @Nonnull Collection<File> childModuleBaseDirectories
+    ) {
+        Path basePath = normalize(baseDirectory.toPath());
+        Key key = new Key(cacheKey, normalize(reportFile.toPath()), basePath);
+        NavigableMap<String, List<Object>> records = reports.computeIfAbsent(
+                key,
+                k -> parse(reportFile, parser, pathOf, basePath)
+        );
+
+        String modulePath = normalize(moduleBaseDirectory.toPath()).toString();
+        String prefix = prefixOf(moduleBaseDirectory);
+        List<String> childPrefixes = new ArrayList<>();
+        childModuleBaseDirectories.forEach(directory -> childPrefixes.add(prefixOf(directory)));
+
+        List<R> moduleRecords = new ArrayList<>();
+        records.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .forEach((path, recordsForFile) -> {
+                    if (childPrefixes.stream().anyMatch(path::startsWith)) {
+                        return;
+                    }
+
+                    recordsForFile.forEach(record -> {
+                        @SuppressWarnings("unchecked")
+                        R value = (R) record;
+                        moduleRecords.add(value);
+                    });
+                });
+
+        LOGGER.debug("Found {} record(s) for {} in {}", moduleRecords.size(), modulePath, reportFile);
+        return moduleRecords;
+    }
+
+    /**
+     * Release the parsed records of the report, the report is parsed again if requested
+     * after being released.
+     *
+     * @param reportFile Report to release.
+     */
+    public void release(@Nonnull File reportFile) {
+        Path path = normalize(reportFile.toPath());
+        if (reports.keySet().removeIf(key -> key.reportFile.equals(path))) {
+            LOGGER.debug("Released shared report {}", reportFile);
+        }
+    }
+
+    @Nonnull
+    private static <R> NavigableMap<String, List<Object>> parse(
+            @Nonnull File reportFile,
+            @Nonnull ReportRecordParser<R> parser,
+            @Nonnull Function<R, String> pathOf,
+            @Nonnull Path baseDirectory
+    ) {
+        LOGGER.debug("Parsing shared report {}", reportFile);
+
+        NavigableMap<String, List<Object>> records = new TreeMap<>();
+        boolean parsed = parser.parse(reportFile, record -> {
+            String path = normalize(baseDirectory.resolve(pathOf.apply(record))).toString();
+            records.computeIfAbsent(path, key -> new ArrayList<>()).add(record);
+        });
+        if (!parsed) {
+            return Collections.emptyNavigableMap();
+        }
+
+        return records;
+    }
+
+    @Nonnull
+    private static String prefixOf(@Nonnull File directory) {
+        String path = normalize(directory.toPath()).toString();
+        return path.endsWith(File.separator) ? path : path + File.separator;
+    }
+
+    @Nonnull
+    private static Path normalize(@Nonnull Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private static final class Key {
+        private final String cacheKey;
+        private final Path reportFile;
+        private final Path baseDirectory;
+
+        private Key(@Nonnull String cacheKey, @Nonnull Path reportFile, @Nonnull Path baseDirectory) {
+            this.cacheKey = cacheKey;
+            this.reportFile = reportFile;
+            this.baseDirectory = baseDirectory;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return Objects.equals(cacheKey, other.cacheKey)
+                    && Objects.equals(reportFile, other.reportFile)
+                    && Objects.equals(baseDirectory, other.baseDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheKey, reportFile, baseDirectory);
+        }
+    }
+}
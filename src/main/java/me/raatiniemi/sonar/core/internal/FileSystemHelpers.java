@@ -44,6 +44,7 @@ public final class FileSystemHelpers {
     @Nonnull
     private TestInputFileBuilder buildInputFile(@Nonnull String relativePath, @Nonnull String language) {
         return new TestInputFileBuilder(context.module().key(), relativePath)
+                .setModuleBaseDir(context.fileSystem().baseDirPath())
                 .setLanguage(language)
                 .initMetadata("1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n");
     }
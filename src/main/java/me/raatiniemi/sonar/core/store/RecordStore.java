@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.store;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Append only store of records, kept in binary form outside of the object heap.
+ * <p>
+ * The records are written by a parser, e.g. using {@code parser.parse(file, store::append)},
+ * and read back sequentially by the persistence, e.g. using
+ * {@code persistence.saveMeasures(store.iterator())}. Each record is kept as its length
+ * followed by the bytes written by the {@link RecordCodec}, in chunks of one megabyte,
+ * i.e. the number of objects on the heap do not depend on the number of records.
+ * <p>
+ * Records must not be appended while the store is read.
+ *
+ * @param <T> Type of the record.
+ */
+public final class RecordStore<T> implements Iterable<T>, Closeable {
+    private static final Logger LOGGER = Loggers.get(RecordStore.class);
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final RecordOutput output = new RecordOutput();
+    private final DataOutputStream dataOutput = new DataOutputStream(output);
+    private final byte[] length = new byte[Integer.BYTES];
+    private final RecordCodec<T> codec;
+    private final RecordStoreType type;
+    private final Path file;
+    private final FileChannel channel;
+
+    private int size;
+
+    private RecordStore(
+            @Nonnull RecordCodec<T> codec,
+            @Nonnull RecordStoreType type,
+            Path file,
+            FileChannel channel
+    ) {
+        this.codec = codec;
+        this.type = type;
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Create record store.
+     * <p>
+     * If the temporary file for a memory mapped store can not be created, the records
+     * are kept on the heap instead.
+     *
+     * @param codec Codec for reading and writing the records.
+     * @param type Where the records are kept.
+     * @param workDirectory Directory for the temporary file of a memory mapped store.
+     * @param <T> Type of the record.
+     * @return Record store.
+     */
+    @Nonnull
+    public static <T> RecordStore<T> create(
+            @Nonnull RecordCodec<T> codec,
+            @Nonnull RecordStoreType type,
+            @Nonnull File workDirectory
+    ) {
+        if (RecordStoreType.MAPPED != type) {
+            return new RecordStore<>(codec, type, null, null);
+        }
+
+        try {
+            Files.createDirectories(workDirectory.toPath());
+            Path file = Files.createTempFile(workDirectory.toPath(), "records", ".bin");
+            FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE
+            );
+            return new RecordStore<>(codec, type, file, channel);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to create memory mapped record store in {}, using heap", workDirectory, e);
+            return new RecordStore<>(codec, RecordStoreType.HEAP, null, null);
+        }
+    }
+
+    @Nonnull
+    public RecordStoreType getType() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append record to the store.
+     *
+     * @param record Record to append.
+     * @throws UncheckedIOException If the record could not be written.
+     */
+    public void append(@Nonnull T record) {
+        try {
+            output.reset();
+            codec.write(record, dataOutput);
+            dataOutput.flush();
+
+            int numberOfBytes = output.size();
+            length[0] = (byte) (numberOfBytes >>> 24);
+            length[1] = (byte) (numberOfBytes >>> 16);
+            length[2] = (byte) (numberOfBytes >>> 8);
+            length[3] = (byte) numberOfBytes;
+            write(length, Integer.BYTES);
+            write(output.buffer(), numberOfBytes);
+            size++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write record to store", e);
+        }
+    }
+
+    private void write(@Nonnull byte[] bytes, int numberOfBytes) throws IOException {
+        int offset = 0;
+        while (offset < numberOfBytes) {
+            ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (null == chunk || !chunk.hasRemaining()) {
+                chunk = allocate(chunks.size());
+                chunks.add(chunk);
+            }
+
+            int count = Math.min(chunk.remaining(), numberOfBytes - offset);
+            chunk.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    @Nonnull
+    private ByteBuffer allocate(int index) throws IOException {
+        switch (type) {
+            case DIRECT:
+                return ByteBuffer.allocateDirect(CHUNK_SIZE);
+            case MAPPED:
+                return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * CHUNK_SIZE, CHUNK_SIZE);
+            default:
+                return ByteBuffer.allocate(CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Read the records in the order they were appended.
+     *
+     * @return Iterator for the records.
+     * @throws UncheckedIOException If a record could not be read.
+     */
+    @Nonnull
+    @Override
+    public Iterator<T> iterator() {
+        return new RecordIterator();
+    }
+
+    @Nonnull
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliterator(
+                iterator(),
+                size,
+                Spliterator.ORDERED | Spliterator.NONNULL
+        );
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Drop the references to the records, and close the temporary file of a memory mapped
+     * store.
+     * <p>
+     * Direct and mapped buffers can not be released explicitly, their memory is only freed
+     * once the buffers are garbage collected. The temporary file is deleted when it is
+     * closed, except on Windows where a file can not be deleted while it is still mapped,
+     * i.e. the file might remain until the mappings are garbage collected.
+     */
+    @Override
+    public void close() {
+        chunks.clear();
+        size = 0;
+
+        if (null == channel) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to remove record store {}", file, e);
+        }
+    }
+
+    private final class RecordIterator implements Iterator<T> {
+        private final RecordInput input = new RecordInput();
+        private final DataInputStream dataInput = new DataInputStream(input);
+        private final byte[] length = new byte[Integer.BYTES];
+
+        private ByteBuffer chunk;
+        private int chunkIndex = -1;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            read(length, Integer.BYTES);
+            int numberOfBytes = (length[0] & 0xFF) << 24
+                    | (length[1] & 0xFF) << 16
+                    | (length[2] & 0xFF) << 8
+                    | length[3] & 0xFF;
+            read(input.buffer(numberOfBytes), numberOfBytes);
+            index++;
+
+            try {
+                return codec.read(dataInput);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read record from store", e);
+            }
+        }
+
+        private void read(@Nonnull byte[] bytes, int numberOfBytes) {
+            int offset = 0;
+            while (offset < numberOfBytes) {
+                if (null == chunk || !chunk.hasRemaining()) {
+                    chunkIndex++;
+                    chunk = chunks.get(chunkIndex).duplicate();
+                    chunk.flip();
+                }
+
+                int count = Math.min(chunk.remaining(), numberOfBytes - offset);
+                chunk.get(bytes, offset, count);
+                offset += count;
+            }
+        }
+    }
+
+    /**
+     * Output exposing its buffer, so that the bytes are not copied for each record.
+     */
+    private static final class RecordOutput extends ByteArrayOutputStream {
+        @Nonnull
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * Input reusing its buffer for each record.
+     */
+    private static final class RecordInput extends ByteArrayInputStream {
+        private RecordInput() {
+            super(new byte[64]);
+        }
+
+        @Nonnull
+        private byte[] buffer(int numberOfBytes) {
+            if (buf.length < numberOfBytes) {
+                buf = new byte[Math.max(numberOfBytes, buf.length * 2)];
+            }
+
+            pos = 0;
+            count = numberOfBytes;
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.store;
+
+/**
+ * Where the records in a {@link RecordStore} are kept.
+ */
+public enum RecordStoreType {
+    /**
+     * Byte buffers on the heap, a few large arrays instead of an object per record.
+     */
+    HEAP,
+    /**
+     * Direct byte buffers outside of the heap.
+     */
+    DIRECT,
+    /**
+     * Temporary file mapped into memory, paged in and out by the operating system.
+     */
+    MAPPED
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.Optional;
+
+/**
+ * Provide hardened {@link DocumentBuilder} instances from a single configured factory.
+ * <p>
+ * The factory is only looked up and configured once, and the document builders handed
+ * out by {@link #get()} are confined to the calling thread and reused between documents.
+ */
+public final class DocumentBuilderProvider {
+    private static final Logger LOGGER = Loggers.get(DocumentBuilderProvider.class);
+
+    private final DocumentBuilderFactory factory;
+    private final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+
+    private DocumentBuilderProvider(@Nonnull DocumentBuilderFactory factory) {
+        this.factory = factory;
+    }
+
+    @Nonnull
+    public static Optional<DocumentBuilderProvider> create() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+
+            return Optional.of(new DocumentBuilderProvider(factory));
+        } catch (ParserConfigurationException e) {
+            LOGGER.error("Unable to configure document builder factory", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Create a new document builder, that is owned by the caller.
+     *
+     * @return New document builder, or empty if it could not be created.
+     */
+    @Nonnull
+    public Optional<DocumentBuilder> newDocumentBuilder() {
+        try {
+            // The factory itself is not guaranteed to be thread-safe.
+            synchronized (factory) {
+                return Optional.of(factory.newDocumentBuilder());
+            }
+        } catch (ParserConfigurationException e) {
+            LOGGER.error("Unable to create new document builder", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the document builder confined to the calling thread.
+     * <p>
+     * The document builder is reset before it is returned, and must not be shared with
+     * other threads.
+     *
+     * @return Document builder for the calling thread, or empty if it could not be created.
+     */
+    @Nonnull
+    public Optional<DocumentBuilder> get() {
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        if (null != documentBuilder) {
+            documentBuilder.reset();
+            return Optional.of(documentBuilder);
+        }
+
+        Optional<DocumentBuilder> value = newDocumentBuilder();
+        value.ifPresent(documentBuilders::set);
+
+        return value;
+    }
+}
@@ -16,7 +16,9 @@
  */
 package me.raatiniemi.sonar.core.xml;
 
+import me.raatiniemi.sonar.core.ReportFiles;
 import me.raatiniemi.sonar.core.ReportParser;
+import me.raatiniemi.sonar.core.ReportReadMode;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.w3c.dom.Document;
@@ -29,6 +31,7 @@ import javax.annotation.Nonnull;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -38,9 +41,19 @@ public abstract class XmlReportParser<T> implements ReportParser<T> {
     private static final Logger LOGGER = Loggers.get(XmlReportParser.class);
 
     private final DocumentBuilder documentBuilder;
+    private final ReportReadMode readMode;
 
     protected XmlReportParser(@Nonnull DocumentBuilder documentBuilder) {
+        this(documentBuilder, ReportReadMode.STREAM);
+    }
+
+    /**
+     * @param documentBuilder Document builder for parsing the reports.
+     * @param readMode How the report files are read, e.g. mapped into memory.
+     */
+    protected XmlReportParser(@Nonnull DocumentBuilder documentBuilder, @Nonnull ReportReadMode readMode) {
         this.documentBuilder = documentBuilder;
+        this.readMode = readMode;
     }
 
     @Nonnull
@@ -66,13 +79,13 @@ public abstract class XmlReportParser<T> implements ReportParser<T> {
 
     @Nonnull
     public final Optional<T> parse(@Nonnull File reportFile) {
-        if (!reportFile.exists()) {
+        if (!ReportFiles.exists(reportFile)) {
             LOGGER.warn("No XML report exist at path: {}", reportFile);
             return Optional.empty();
         }
 
-        try {
-            Document document = documentBuilder.parse(reportFile);
+        try (InputStream inputStream = ReportFiles.open(reportFile, readMode)) {
+            Document document = documentBuilder.parse(inputStream, reportFile.toURI().toString());
             T report = parse(document);
 
             return Optional.of(report);
@@ -16,7 +16,8 @@
  */
 package me.raatiniemi.sonar.core.xml;
 
-import me.raatiniemi.sonar.core.ReportFinder;
+import me.raatiniemi.sonar.core.ReportFileIndex;
+import me.raatiniemi.sonar.core.ReportParser;
 import me.raatiniemi.sonar.core.ReportPatternFinder;
 import me.raatiniemi.sonar.core.ReportSensor;
 import org.sonar.api.config.Configuration;
@@ -24,39 +25,184 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class XmlReportSensor extends ReportSensor {
     private static final Logger LOGGER = Loggers.get(XmlReportSensor.class);
 
+    private DocumentBuilderProvider documentBuilderProvider;
+
     protected XmlReportSensor(@Nonnull Configuration configuration) {
         super(configuration);
     }
 
+    protected XmlReportSensor(@Nonnull Configuration configuration, @Nullable ReportFileIndex reportFileIndex) {
+        super(configuration, reportFileIndex);
+    }
+
+    @Nonnull
+    private synchronized Optional<DocumentBuilderProvider> getDocumentBuilderProvider() {
+        if (null == documentBuilderProvider) {
+            documentBuilderProvider = DocumentBuilderProvider.create().orElse(null);
+        }
+
+        return Optional.ofNullable(documentBuilderProvider);
+    }
+
     @Nonnull
     protected final Optional<DocumentBuilder> createDocumentBuilder() {
+        return getDocumentBuilderProvider()
+                .flatMap(DocumentBuilderProvider::newDocumentBuilder);
+    }
+
+    /**
+     * Get document builder confined to the calling thread.
+     * <p>
+     * The document builder is reused between calls on the same thread, and is reset
+     * before it is returned.
+     *
+     * @return Document builder for the calling thread.
+     */
+    @Nonnull
+    protected final Optional<DocumentBuilder> getDocumentBuilder() {
+        return getDocumentBuilderProvider()
+                .flatMap(DocumentBuilderProvider::get);
+    }
+
+    @Nonnull
+    protected final XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+
+        return factory;
+    }
+
+    @Nonnull
+    protected final Stream<File> collectAvailableReports(@Nonnull File projectDirectoryPath) {
+        ReportPatternFinder reportFinder = createReportFinder(projectDirectoryPath);
+        return filterDuplicateReports(reportFinder.findReportsMatching(readReportPath()).stream());
+    }
+
+    /**
+     * Stream available reports while the project directory is searched.
+     * <p>
+     * Combined with {@link #parseAvailableReports(Stream, Function)}, parsing of the first
+     * reports can start before the search of the project directory is complete.
+     *
+     * @param projectDirectoryPath Directory to search for reports.
+     * @return Available reports, the stream should be closed if not consumed completely.
+     */
+    @Nonnull
+    protected final Stream<File> streamAvailableReports(@Nonnull File projectDirectoryPath) {
+        ReportPatternFinder reportFinder = createReportFinder(projectDirectoryPath);
+        return filterDuplicateReports(reportFinder.streamReportsMatching(readReportPath()));
+    }
+
+    /**
+     * Parse reports using a pool of worker threads.
+     * <p>
+     * Each worker thread use its own {@link DocumentBuilder}, which is reused for every
+     * report parsed by the worker. The parsed reports are returned in the same order as
+     * the report files, regardless of the order in which the workers finish parsing them.
+     * <p>
+     * Each report is handed to the workers as soon as it is read from the stream, and the
+     * stream is closed once it have been consumed.
+     *
+     * @param reportFiles Report files to parse.
+     * @param parserFactory Factory for creating a parser from a document builder.
+     * @param <T> Type of the report result.
+     * @return Successfully parsed reports.
+     */
+    @Nonnull
+    protected final <T> List<T> parseAvailableReports(
+            @Nonnull Stream<File> reportFiles,
+            @Nonnull Function<DocumentBuilder, ReportParser<T>> parserFactory
+    ) {
+        int numberOfThreads = readNumberOfParserThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ParserThreadFactory());
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            factory.setXIncludeAware(false);
-            factory.setExpandEntityReferences(false);
-
-            return Optional.of(factory.newDocumentBuilder());
-        } catch (ParserConfigurationException e) {
-            LOGGER.error("Unable to create new document builder", e);
-            return Optional.empty();
+            List<Future<Optional<T>>> results = reportFiles
+                    .map(reportFile -> executor.submit(() -> parseReport(reportFile, parserFactory)))
+                    .collect(Collectors.toList());
+
+            LOGGER.debug("Parsing {} report(s) using {} thread(s)", results.size(), numberOfThreads);
+            return collectParsedReports(results);
+        } finally {
+            reportFiles.close();
+            executor.shutdownNow();
         }
     }
 
     @Nonnull
-    protected final Stream<File> collectAvailableReports(@Nonnull File projectDirectoryPath) {
-        ReportPatternFinder reportFinder = ReportFinder.create(projectDirectoryPath);
-        return reportFinder.findReportsMatching(readReportPath()).stream();
+    private <T> Optional<T> parseReport(
+            @Nonnull File reportFile,
+            @Nonnull Function<DocumentBuilder, ReportParser<T>> parserFactory
+    ) {
+        return getDocumentBuilder()
+                .map(parserFactory)
+                .flatMap(parser -> parser.parse(reportFile));
+    }
+
+    @Nonnull
+    private static <T> List<T> collectParsedReports(@Nonnull List<Future<Optional<T>>> results) {
+        List<T> reports = new ArrayList<>();
+        for (Future<Optional<T>> result : results) {
+            try {
+                result.get().ifPresent(reports::add);
+            } catch (InterruptedException e) {
+                LOGGER.warn("Parsing of reports was interrupted");
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("Unable to parse report", e.getCause());
+            }
+        }
+
+        return reports;
+    }
+
+    @Nonnull
+    protected String getParserThreadsKey() {
+        return getReportPathKey() + ".parserThreads";
+    }
+
+    private int readNumberOfParserThreads() {
+        String parserThreadsKey = getParserThreadsKey();
+        Optional<Integer> value = getConfiguration().getInt(parserThreadsKey);
+        if (value.isPresent() && value.get() > 0) {
+            LOGGER.debug("Found number of parser threads for configuration key {}", parserThreadsKey);
+            return value.get();
+        }
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static final class ParserThreadFactory implements ThreadFactory {
+        private final AtomicInteger numberOfThreads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@Nonnull Runnable runnable) {
+            Thread thread = new Thread(runnable, "report-parser-" + numberOfThreads.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import me.raatiniemi.sonar.core.ReportParser;
+import me.raatiniemi.sonar.core.ReportReadMode;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Parse XML report files as a stream of elements.
+ * <p>
+ * In contrast to {@link XmlReportParser}, the report is never loaded into memory as a
+ * whole, instead the subclass is handed the {@link XMLStreamReader} and process the
+ * elements as they are read from the report file.
+ *
+ * @param <T> Type of the report result.
+ */
+public abstract class XmlStreamReportParser<T> implements ReportParser<T> {
+    private final XMLInputFactory inputFactory;
+    private final ReportReadMode readMode;
+
+    protected XmlStreamReportParser(@Nonnull XMLInputFactory inputFactory) {
+        this(inputFactory, ReportReadMode.STREAM);
+    }
+
+    /**
+     * @param inputFactory Factory for creating the stream readers.
+     * @param readMode How the report files are read, e.g. mapped into memory.
+     */
+    protected XmlStreamReportParser(@Nonnull XMLInputFactory inputFactory, @Nonnull ReportReadMode readMode) {
+        this.inputFactory = inputFactory;
+        this.readMode = readMode;
+    }
+
+    @Nonnull
+    public final Optional<T> parse(@Nonnull File reportFile) {
+        return XmlStreams.read(inputFactory, reportFile, readMode, this::parse);
+    }
+
+    @Nonnull
+    protected abstract T parse(@Nonnull XMLStreamReader reader) throws XMLStreamException;
+
+    /**
+     * Advance the reader to the next start element with matching name.
+     *
+     * @param reader Reader to advance.
+     * @param tagName Name of the element to advance to.
+     * @return true if the reader is positioned at a matching element, false if the end of
+     * the document was reached.
+     * @throws XMLStreamException If the report can not be read.
+     */
+    protected static boolean nextElement(@Nonnull XMLStreamReader reader, @Nonnull String tagName)
+            throws XMLStreamException {
+        return XmlStreams.nextElement(reader, tagName);
+    }
+
+    /**
+     * Read attribute from the element at the current position of the reader.
+     *
+     * @param reader Reader positioned at a start element.
+     * @param name Name of the attribute.
+     * @return Value of the attribute, or an empty string if the attribute is not available.
+     */
+    @Nonnull
+    protected static String getAttribute(@Nonnull XMLStreamReader reader, @Nonnull String name) {
+        return XmlStreams.getAttribute(reader, name);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import me.raatiniemi.sonar.core.ReportFiles;
+import me.raatiniemi.sonar.core.ReportReadMode;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Shared functionality for the {@link XMLStreamReader} based report parsers.
+ */
+final class XmlStreams {
+    private static final Logger LOGGER = Loggers.get(XmlStreams.class);
+
+    private XmlStreams() {
+    }
+
+    @Nonnull
+    static <R> Optional<R> read(
+            @Nonnull XMLInputFactory inputFactory,
+            @Nonnull File reportFile,
+            @Nonnull ReportReadMode readMode,
+            @Nonnull ReaderFunction<R> function
+    ) {
+        if (!ReportFiles.exists(reportFile)) {
+            LOGGER.warn("No XML report exist at path: {}", reportFile);
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = open(reportFile, readMode)) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+            try {
+                return Optional.of(function.apply(reader));
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | IOException e) {
+            LOGGER.error("Unable to process XML file named: {}", reportFile, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Only the plain stream is buffered, the other read modes already serve large reads
+     * without a call to the file system for each of them.
+     */
+    @Nonnull
+    private static InputStream open(@Nonnull File reportFile, @Nonnull ReportReadMode readMode) throws IOException {
+        InputStream inputStream = ReportFiles.open(reportFile, readMode);
+        if (ReportReadMode.STREAM == readMode) {
+            return new BufferedInputStream(inputStream);
+        }
+
+        return inputStream;
+    }
+
+    static boolean nextElement(@Nonnull XMLStreamReader reader, @Nonnull String tagName)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && tagName.equals(reader.getLocalName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Nonnull
+    static String getAttribute(@Nonnull XMLStreamReader reader, @Nonnull String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (null == value) {
+            return "";
+        }
+
+        return value;
+    }
+
+    @FunctionalInterface
+    interface ReaderFunction<R> {
+        @Nonnull
+        R apply(@Nonnull XMLStreamReader reader) throws XMLStreamException;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import me.raatiniemi.sonar.core.ReportFiles;
+import me.raatiniemi.sonar.core.ReportParser;
+import me.raatiniemi.sonar.core.ReportReadMode;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Parse XML reports consisting of elements with attributes using the {@link XmlTokenizer}.
+ * <p>
+ * In contrast to {@link XmlStreamReportParser}, the report is never decoded as a whole,
+ * only the names and attributes requested by the subclass are decoded. Reports with a
+ * document type declaration, or in another encoding than UTF-8, can not be parsed.
+ *
+ * @param <T> Type of the report result.
+ */
+public abstract class XmlTokenReportParser<T> implements ReportParser<T> {
+    private static final Logger LOGGER = Loggers.get(XmlTokenReportParser.class);
+
+    private final ReportReadMode readMode;
+
+    protected XmlTokenReportParser() {
+        this(ReportReadMode.STREAM);
+    }
+
+    /**
+     * @param readMode How the report files are read, e.g. mapped into memory.
+     */
+    protected XmlTokenReportParser(@Nonnull ReportReadMode readMode) {
+        this.readMode = readMode;
+    }
+
+    @Nonnull
+    public final Optional<T> parse(@Nonnull File reportFile) {
+        if (!ReportFiles.exists(reportFile)) {
+            LOGGER.warn("No XML report exist at path: {}", reportFile);
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = ReportFiles.open(reportFile, readMode)) {
+            return Optional.of(parse(XmlTokenizer.create(inputStream)));
+        } catch (IOException e) {
+            LOGGER.error("Unable to process XML file named: {}", reportFile, e);
+            return Optional.empty();
+        }
+    }
+
+    @Nonnull
+    protected abstract T parse(@Nonnull XmlTokenizer tokenizer) throws IOException;
+}
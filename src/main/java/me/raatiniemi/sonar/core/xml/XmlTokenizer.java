@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core.xml;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pull tokenizer for XML reports consisting of elements with attributes, reading the
+ * start tags straight from the UTF-8 encoded bytes.
+ * <p>
+ * The tokenizer is not a conforming XML parser, it only reads the name and attributes of
+ * each start tag while text, end tags, comments, CDATA sections and processing
+ * instructions are skipped. Namespaces are not resolved and nesting is not verified. In
+ * line with the hardened document builders, a document type declaration is rejected and
+ * only the predefined entities and character references are expanded, i.e. nothing
+ * outside of the report is ever read.
+ * <p>
+ * The attribute values are decoded first when they are requested.
+ */
+public final class XmlTokenizer {
+    private static final int BUFFER_SIZE = 65536;
+    private static final int MAX_TAG_LENGTH = 1024 * 1024;
+    private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']*)[\"']");
+
+    private static final byte[] COMMENT_END = {'-', '-', '>'};
+    private static final byte[] CDATA_START = {'C', 'D', 'A', 'T', 'A', '['};
+    private static final byte[] CDATA_END = {']', ']', '>'};
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean foundElement;
+
+    /**
+     * Content of the current start tag, without the angle brackets.
+     */
+    private byte[] tag = new byte[256];
+    private int tagLength;
+    private int nameLength;
+    private boolean emptyElement;
+
+    /**
+     * Start and end of the name and value for each attribute of the current start tag.
+     */
+    private int[] attributes = new int[32];
+    private int numberOfAttributes;
+
+    private XmlTokenizer(@Nonnull InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Create tokenizer reading from the input stream, the stream is read in large chunks
+     * and do not need to be buffered.
+     *
+     * @param input Stream with the UTF-8 encoded report.
+     * @return Tokenizer for the report.
+     */
+    @Nonnull
+    public static XmlTokenizer create(@Nonnull InputStream input) {
+        return new XmlTokenizer(input);
+    }
+
+    /**
+     * Advance to the next start tag.
+     *
+     * @return true if the tokenizer is positioned at a start tag, false if the end of the
+     * report was reached.
+     * @throws IOException If the report can not be read, or is malformed.
+     */
+    public boolean nextElement() throws IOException {
+        if (!started) {
+            started = true;
+            skipByteOrderMark();
+        }
+
+        while (skipToTag()) {
+            int value = read();
+            switch (value) {
+                case '?':
+                    skipProcessingInstruction();
+                    break;
+                case '!':
+                    skipDeclaration();
+                    break;
+                case '/':
+                    skipEndTag();
+                    break;
+                case -1:
+                    throw new IOException("Unexpected end of report");
+                default:
+                    readStartTag((byte) value);
+                    foundElement = true;
+                    return true;
+            }
+        }
+
+        if (!foundElement) {
+            throw new IOException("No element found in report");
+        }
+
+        return false;
+    }
+
+    /**
+     * Advance to the next start tag with matching name.
+     *
+     * @param tagName Name of the element to advance to.
+     * @return true if the tokenizer is positioned at a matching start tag, false if the end
+     * of the report was reached.
+     * @throws IOException If the report can not be read, or is malformed.
+     */
+    public boolean nextElement(@Nonnull String tagName) throws IOException {
+        while (nextElement()) {
+            if (matches(0, nameLength, tagName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the name of the current element, including any namespace prefix.
+     *
+     * @return Name of the current element.
+     */
+    @Nonnull
+    public String getName() {
+        return decode(0, nameLength);
+    }
+
+    /**
+     * Check if the current element is empty, i.e. written as {@code <file />}.
+     *
+     * @return true if the current element is empty, otherwise false.
+     */
+    public boolean isEmptyElement() {
+        return emptyElement;
+    }
+
+    public int getAttributeCount() {
+        return numberOfAttributes;
+    }
+
+    @Nonnull
+    public String getAttributeName(int index) {
+        checkAttributeIndex(index);
+        return decode(attributes[index * 4], attributes[index * 4 + 1]);
+    }
+
+    @Nonnull
+    public String getAttributeValue(int index) throws IOException {
+        checkAttributeIndex(index);
+        return decodeValue(attributes[index * 4 + 2], attributes[index * 4 + 3]);
+    }
+
+    /**
+     * Read attribute from the current element.
+     *
+     * @param name Name of the attribute.
+     * @return Value of the attribute, or an empty string if the attribute is not available.
+     * @throws IOException If the value contains an undefined entity.
+     */
+    @Nonnull
+    public String getAttribute(@Nonnull String name) throws IOException {
+        for (int i = 0; i < numberOfAttributes; i++) {
+            if (matches(attributes[i * 4], attributes[i * 4 + 1], name)) {
+                return decodeValue(attributes[i * 4 + 2], attributes[i * 4 + 3]);
+            }
+        }
+
+        return "";
+    }
+
+    private void checkAttributeIndex(int index) {
+        if (index < 0 || index >= numberOfAttributes) {
+            throw new IndexOutOfBoundsException("No attribute at index " + index);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int length = input.read(buffer, 0, buffer.length);
+        while (length == 0) {
+            length = input.read(buffer, 0, buffer.length);
+        }
+
+        position = 0;
+        limit = Math.max(length, 0);
+        return length > 0;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (position >= limit && !fill()) {
+            return;
+        }
+
+        if (limit - position >= 3
+                && (buffer[position] & 0xFF) == 0xEF
+                && (buffer[position + 1] & 0xFF) == 0xBB
+                && (buffer[position + 2] & 0xFF) == 0xBF) {
+            position += 3;
+        }
+    }
+
+    /**
+     * Skip text until the start of the next tag.
+     *
+     * @return true if positioned after the opening angle bracket, false at the end of the report.
+     */
+    private boolean skipToTag() throws IOException {
+        do {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == '<') {
+                    position = i + 1;
+                    return true;
+                }
+            }
+
+            position = limit;
+        } while (fill());
+
+        return false;
+    }
+
+    private void skipUntil(@Nonnull byte[] terminator) throws IOException {
+        byte[] window = new byte[terminator.length];
+        int numberOfBytes = 0;
+        for (int value = read(); value >= 0; value = read()) {
+            System.arraycopy(window, 1, window, 0, window.length - 1);
+            window[window.length - 1] = (byte) value;
+            numberOfBytes++;
+
+            if (numberOfBytes >= window.length && Arrays.equals(window, terminator)) {
+                return;
+            }
+        }
+
+        throw new IOException("Unexpected end of report");
+    }
+
+    private void skipEndTag() throws IOException {
+        for (int value = read(); value >= 0; value = read()) {
+            if (value == '>') {
+                return;
+            }
+        }
+
+        throw new IOException("Unexpected end of report");
+    }
+
+    private void skipDeclaration() throws IOException {
+        int value = read();
+        if (value == '-' && read() == '-') {
+            skipUntil(COMMENT_END);
+            return;
+        }
+
+        if (value == '[' && isNext(CDATA_START)) {
+            skipUntil(CDATA_END);
+            return;
+        }
+
+        if (value == 'D') {
+            throw new IOException("Document type declarations are not allowed");
+        }
+
+        throw new IOException("Unexpected declaration in report");
+    }
+
+    private boolean isNext(@Nonnull byte[] expected) throws IOException {
+        for (byte value : expected) {
+            if (read() != value) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Skip processing instruction, verifying the encoding if it is the XML declaration.
+     */
+    private void skipProcessingInstruction() throws IOException {
+        tagLength = 0;
+        int matched = 0;
+        for (int value = read(); value >= 0; value = read()) {
+            append((byte) value);
+            matched = value == '?' ? 1 : matched == 1 && value == '>' ? 2 : 0;
+            if (matched == 2) {
+                verifyEncoding(new String(tag, 0, tagLength - 2, StandardCharsets.ISO_8859_1));
+                tagLength = 0;
+                return;
+            }
+        }
+
+        throw new IOException("Unexpected end of report");
+    }
+
+    private static void verifyEncoding(@Nonnull String processingInstruction) throws IOException {
+        if (!processingInstruction.startsWith("xml") || processingInstruction.length() < 4
+                || !isWhitespace((byte) processingInstruction.charAt(3))) {
+            return;
+        }
+
+        Matcher matcher = ENCODING.matcher(processingInstruction);
+        if (!matcher.find()) {
+            return;
+        }
+
+        String encoding = matcher.group(1).toUpperCase(Locale.ENGLISH);
+        switch (encoding) {
+            case "UTF-8":
+            case "UTF8":
+            case "US-ASCII":
+            case "ASCII":
+                return;
+            default:
+                throw new IOException("Unsupported encoding " + matcher.group(1));
+        }
+    }
+
+    private void readStartTag(byte first) throws IOException {
+        tagLength = 0;
+        append(first);
+
+        int quote = 0;
+        for (int value = read(); ; value = read()) {
+            if (value < 0) {
+                throw new IOException("Unexpected end of report");
+            }
+            if (quote == 0 && value == '>') {
+                break;
+            }
+            if (value == '"' || value == '\'') {
+                quote = quote == 0 ? value : quote == value ? 0 : quote;
+            }
+
+            append((byte) value);
+        }
+
+        parseStartTag();
+    }
+
+    private void append(byte value) throws IOException {
+        if (tagLength == tag.length) {
+            if (tag.length >= MAX_TAG_LENGTH) {
+                throw new IOException("Tag exceeds the maximum length of " + MAX_TAG_LENGTH + " bytes");
+            }
+
+            tag = Arrays.copyOf(tag, tag.length * 2);
+        }
+
+        tag[tagLength++] = value;
+    }
+
+    private void parseStartTag() throws IOException {
+        int end = tagLength;
+        emptyElement = end > 0 && tag[end - 1] == '/';
+        if (emptyElement) {
+            end--;
+        }
+
+        int i = 0;
+        while (i < end && !isWhitespace(tag[i]) && tag[i] != '/') {
+            i++;
+        }
+        nameLength = i;
+        if (nameLength == 0) {
+            throw new IOException("Missing element name");
+        }
+
+        numberOfAttributes = 0;
+        while (true) {
+            i = skipWhitespace(i, end);
+            if (i >= end) {
+                return;
+            }
+
+            int nameStart = i;
+            while (i < end && !isWhitespace(tag[i]) && tag[i] != '=') {
+                i++;
+            }
+            int nameEnd = i;
+
+            i = skipWhitespace(i, end);
+            if (i >= end || tag[i] != '=') {
+                throw new IOException("Missing value for attribute " + decode(nameStart, nameEnd));
+            }
+
+            i = skipWhitespace(i + 1, end);
+            if (i >= end || (tag[i] != '"' && tag[i] != '\'')) {
+                throw new IOException("Missing quotes for attribute " + decode(nameStart, nameEnd));
+            }
+
+            byte quote = tag[i];
+            int valueStart = ++i;
+            while (i < end && tag[i] != quote) {
+                if (tag[i] == '<') {
+                    throw new IOException("Unexpected < in value of attribute " + decode(nameStart, nameEnd));
+                }
+                i++;
+            }
+            if (i >= end) {
+                throw new IOException("Missing end quote for attribute " + decode(nameStart, nameEnd));
+            }
+
+            addAttribute(nameStart, nameEnd, valueStart, i);
+            i++;
+        }
+    }
+
+    private void addAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int index = numberOfAttributes * 4;
+        if (index + 4 > attributes.length) {
+            attributes = Arrays.copyOf(attributes, attributes.length * 2);
+        }
+
+        attributes[index] = nameStart;
+        attributes[index + 1] = nameEnd;
+        attributes[index + 2] = valueStart;
+        attributes[index + 3] = valueEnd;
+        numberOfAttributes++;
+    }
+
+    private int skipWhitespace(int index, int end) {
+        while (index < end && isWhitespace(tag[index])) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\n' || value == '\r';
+    }
+
+    /**
+     * Compare bytes of the current tag with a name, without decoding the bytes unless the
+     * name contains characters outside of ASCII.
+     */
+    private boolean matches(int start, int end, @Nonnull String name) {
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) >= 0x80) {
+                return name.equals(decode(start, end));
+            }
+        }
+
+        if (end - start != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (tag[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Nonnull
+    private String decode(int start, int end) {
+        return new String(tag, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode attribute value, expanding references and normalizing whitespace in the same
+     * way as a conforming parser.
+     */
+    @Nonnull
+    private String decodeValue(int start, int end) throws IOException {
+        String value = decode(start, end);
+        if (!requiresNormalization(start, end)) {
+            return value;
+        }
+
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '&') {
+                i = appendReference(value, i, builder);
+                continue;
+            }
+
+            if (character == '\r' && i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                continue;
+            }
+
+            builder.append(character == '\t' || character == '\n' || character == '\r' ? ' ' : character);
+        }
+
+        return builder.toString();
+    }
+
+    private boolean requiresNormalization(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte value = tag[i];
+            if (value == '&' || value == '\t' || value == '\n' || value == '\r') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Append the replacement of the reference at the index.
+     *
+     * @return Index of the semicolon ending the reference.
+     */
+    private static int appendReference(@Nonnull String value, int index, @Nonnull StringBuilder builder)
+            throws IOException {
+        int end = value.indexOf(';', index);
+        if (end < 0) {
+            throw new IOException("Unterminated reference in attribute value");
+        }
+
+        String name = value.substring(index + 1, end);
+        switch (name) {
+            case "lt":
+                builder.append('<');
+                break;
+            case "gt":
+                builder.append('>');
+                break;
+            case "amp":
+                builder.append('&');
+                break;
+            case "quot":
+                builder.append('"');
+                break;
+            case "apos":
+                builder.append('\'');
+                break;
+            default:
+                builder.appendCodePoint(parseCharacterReference(name));
+                break;
+        }
+
+        return end;
+    }
+
+    private static int parseCharacterReference(@Nonnull String name) throws IOException {
+        if (!name.startsWith("#")) {
+            throw new IOException("Undefined entity &" + name + ";");
+        }
+
+        try {
+            int codePoint = name.startsWith("#x")
+                    ? Integer.parseInt(name.substring(2), 16)
+                    : Integer.parseInt(name.substring(1), 10);
+            if (codePoint > 0 && Character.isValidCodePoint(codePoint)) {
+                return codePoint;
+            }
+        } catch (NumberFormatException e) {
+            // Handled as an invalid reference below.
+        }
+
+        throw new IOException("Invalid character reference &" + name + ";");
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.xml.DocumentBuilderProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.xml.parsers.DocumentBuilder;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(JUnit4.class)
+public class DocumentBuilderProviderTest {
+    private DocumentBuilderProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = DocumentBuilderProvider.create().orElseThrow(IllegalStateException::new);
+    }
+
+    @Test
+    public void get_withSameThread() {
+        DocumentBuilder expected = provider.get().orElseThrow(IllegalStateException::new);
+
+        DocumentBuilder actual = provider.get().orElseThrow(IllegalStateException::new);
+
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void get_withDifferentThreads() {
+        DocumentBuilder expected = provider.get().orElseThrow(IllegalStateException::new);
+
+        DocumentBuilder actual = CompletableFuture.supplyAsync(() -> provider.get().orElseThrow(IllegalStateException::new))
+                .join();
+
+        assertNotSame(expected, actual);
+    }
+
+    @Test
+    public void newDocumentBuilder() {
+        DocumentBuilder expected = provider.get().orElseThrow(IllegalStateException::new);
+
+        DocumentBuilder actual = provider.newDocumentBuilder().orElseThrow(IllegalStateException::new);
+
+        assertNotSame(expected, actual);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class DuplicateReportFilterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public LogTester logTester = new LogTester();
+
+    @Nonnull
+    private File createReport(@Nonnull String filename, @Nonnull String content) {
+        try {
+            File file = temporaryFolder.newFile(filename);
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            return file;
+        } catch (IOException e) {
+            fail(String.format("Unable to create report: %s", e.getMessage()));
+            return new File(filename);
+        }
+    }
+
+    @Test
+    public void test_withDistinctReports() {
+        File first = createReport("a.xml", "first");
+        File second = createReport("b.xml", "other");
+        File third = createReport("c.xml", "third report");
+
+        List<File> actual = Stream.of(first, second, third)
+                .filter(DuplicateReportFilter.create())
+                .collect(Collectors.toList());
+
+        assertThat(actual).containsExactly(first, second, third);
+    }
+
+    @Test
+    public void test_withDuplicateReports() {
+        File first = createReport("a.xml", "report");
+        File second = createReport("b.xml", "report");
+        File third = createReport("c.xml", "other!");
+        File fourth = createReport("d.xml", "other!");
+
+        List<File> actual = Stream.of(first, second, third, fourth)
+                .filter(DuplicateReportFilter.create())
+                .collect(Collectors.toList());
+
+        assertThat(actual).containsExactly(first, third);
+        assertThat(logTester.logs(LoggerLevel.INFO)).containsExactly(
+                "Skipping report " + second + ", it have the same content as " + first,
+                "Skipping report " + fourth + ", it have the same content as " + third
+        );
+    }
+}
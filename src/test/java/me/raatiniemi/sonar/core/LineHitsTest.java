@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class LineHitsTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void add_withInvalidLine() {
+        LineHits.create().add(0, 1);
+    }
+
+    @Test
+    public void add_withLines() {
+        LineHits lineHits = LineHits.create();
+
+        lineHits.add(1, 0);
+        lineHits.add(3, 2);
+        lineHits.add(3, 5);
+
+        assertEquals(2, lineHits.size());
+        assertEquals(OptionalInt.of(0), lineHits.get(1));
+        assertFalse(lineHits.get(2).isPresent());
+        assertEquals(OptionalInt.of(7), lineHits.get(3));
+    }
+
+    @Test
+    public void add_withHitsWiderThanPackedValues() {
+        LineHits lineHits = LineHits.create();
+        for (int line = 1; line <= 1000; line++) {
+            lineHits.add(line, line % 7);
+        }
+
+        lineHits.add(500, 70000);
+        lineHits.add(1000, Integer.MAX_VALUE);
+
+        assertEquals(OptionalInt.of(500 % 7 + 70000), lineHits.get(500));
+        assertEquals(OptionalInt.of(Integer.MAX_VALUE), lineHits.get(1000));
+        assertEquals(OptionalInt.of(999 % 7), lineHits.get(999));
+        assertEquals(1000, lineHits.size());
+    }
+
+    @Test
+    public void merge_withOtherLineHits() {
+        LineHits lineHits = LineHits.create();
+        lineHits.add(1, 1);
+        lineHits.add(2, 0);
+        LineHits other = LineHits.create();
+        other.add(2, 3);
+        other.add(4, 0);
+
+        lineHits.merge(other);
+
+        List<String> actual = new ArrayList<>();
+        lineHits.forEach((line, hits) -> actual.add(line + "=" + hits));
+        assertThat(actual).containsExactly("1=1", "2=3", "4=0");
+        assertEquals(LineSet.of(1, 2), lineHits.coveredLines());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class LineSetTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void add_withInvalidLine() {
+        LineSet.create().add(0);
+    }
+
+    @Test
+    public void add_withLines() {
+        LineSet lineSet = LineSet.create();
+
+        lineSet.add(3);
+        lineSet.add(1);
+        lineSet.add(3);
+
+        assertEquals(2, lineSet.size());
+        assertFalse(lineSet.isEmpty());
+    }
+
+    @Test
+    public void contains_withLines() {
+        LineSet lineSet = LineSet.of(1, 3);
+
+        assertTrue(lineSet.contains(1));
+        assertFalse(lineSet.contains(2));
+        assertTrue(lineSet.contains(3));
+    }
+
+    @Test
+    public void contains_withInvalidLines() {
+        LineSet lineSet = LineSet.of(1);
+
+        assertFalse(lineSet.contains(0));
+        assertFalse(lineSet.contains(-1));
+        assertFalse(lineSet.contains(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void union_withLineSets() {
+        LineSet lineSet = LineSet.of(1, 5);
+
+        lineSet.union(LineSet.of(5, 10));
+
+        List<Integer> actual = new ArrayList<>();
+        lineSet.forEach(actual::add);
+        assertThat(actual).containsExactly(1, 5, 10);
+        assertFalse(lineSet.contains(2));
+    }
+
+    @Test
+    public void equals_withSameLines() {
+        LineSet lineSet = LineSet.of(1, 5);
+        LineSet other = LineSet.create();
+        other.add(5);
+        other.add(1);
+
+        assertEquals(lineSet, other);
+        assertEquals(lineSet.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void equals_withDifferentLines() {
+        assertNotEquals(LineSet.of(1, 5), LineSet.of(1, 6));
+        assertNotEquals(LineSet.of(1, 5), LineSet.of(1));
+        assertNotEquals(LineSet.of(1), LineSet.create());
+    }
+
+    @Test
+    public void isEmpty_withoutLines() {
+        LineSet lineSet = LineSet.create();
+
+        assertTrue(lineSet.isEmpty());
+        assertEquals(0, lineSet.size());
+    }
+}
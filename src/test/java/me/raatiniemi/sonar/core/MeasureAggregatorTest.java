@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.MeasureAggregator.Merge;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(JUnit4.class)
+public class MeasureAggregatorTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void create_withoutMetrics() {
+        MeasureAggregator.create();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void add_withUnknownMetric() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM);
+
+        aggregator.add("a.m", 1, 1);
+    }
+
+    @Test
+    public void add_withMerges() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM, Merge.MAX, Merge.MIN, Merge.UNION);
+
+        for (int value : new int[]{1, 4, 2}) {
+            aggregator.add("a.m", 0, value);
+            aggregator.add("a.m", 1, value);
+            aggregator.add("a.m", 2, value);
+            aggregator.add("a.m", 3, value);
+        }
+
+        assertEquals(OptionalInt.of(7), aggregator.get("a.m", 0));
+        assertEquals(OptionalInt.of(4), aggregator.get("a.m", 1));
+        assertEquals(OptionalInt.of(1), aggregator.get("a.m", 2));
+        assertEquals(OptionalInt.of(7), aggregator.get("a.m", 3));
+    }
+
+    @Test
+    public void get_withoutValue() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM, Merge.MAX);
+        aggregator.add("a.m", 0, 1);
+
+        assertFalse(aggregator.get("a.m", 1).isPresent());
+        assertFalse(aggregator.get("b.m", 0).isPresent());
+    }
+
+    @Test
+    public void add_withManyPaths() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM);
+
+        for (int shard = 0; shard < 3; shard++) {
+            for (int i = 0; i < 1000; i++) {
+                aggregator.add("Sources/File" + i + ".m", 0, i);
+            }
+        }
+
+        assertEquals(1000, aggregator.size());
+        assertEquals(OptionalInt.of(3 * 999), aggregator.get("Sources/File999.m", 0));
+    }
+
+    @Test
+    public void merge_withOtherAggregator() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM);
+        aggregator.add("a.m", 0, 1);
+        MeasureAggregator other = MeasureAggregator.create(Merge.SUM);
+        other.add("b.m", 0, 2);
+        other.add("a.m", 0, 3);
+
+        aggregator.merge(other);
+
+        List<String> actual = new ArrayList<>();
+        aggregator.forEach((path, metric, value) -> actual.add(path + "=" + value));
+        assertThat(actual).containsExactly("a.m=4", "b.m=2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void merge_withDifferentMerges() {
+        MeasureAggregator aggregator = MeasureAggregator.create(Merge.SUM);
+
+        aggregator.merge(MeasureAggregator.create(Merge.MAX));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(JUnit4.class)
+public class MeasureBufferTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public final LogTester logTester = new LogTester();
+
+    private SensorContextTester sensorContext;
+
+    @Before
+    public void setUp() {
+        sensorContext = SensorContextTester.create(temporaryFolder.getRoot());
+    }
+
+    @Nonnull
+    private DefaultInputFile createFile(@Nonnull String relativePath) {
+        DefaultInputFile inputFile = new TestInputFileBuilder(sensorContext.module().key(), relativePath)
+                .setModuleBaseDir(sensorContext.fileSystem().baseDirPath())
+                .initMetadata("1")
+                .setLanguage("objc")
+                .build();
+        sensorContext.fileSystem().add(inputFile);
+
+        return inputFile;
+    }
+
+    @Test
+    public void add_withoutFlush() {
+        DefaultInputFile inputFile = createFile("a.m");
+        MeasureBuffer measureBuffer = MeasureBuffer.create(sensorContext);
+
+        measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 1);
+
+        assertNull(sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY_KEY));
+    }
+
+    @Test
+    public void close_withDuplicateMeasures() {
+        DefaultInputFile inputFile = createFile("a.m");
+
+        try (MeasureBuffer measureBuffer = MeasureBuffer.create(sensorContext)) {
+            measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 1, Integer::sum);
+            measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 2, Integer::sum);
+            measureBuffer.add(inputFile, CoreMetrics.FUNCTIONS, 4);
+            measureBuffer.add(inputFile, CoreMetrics.FUNCTIONS, 3);
+        }
+
+        Measure<Integer> complexity = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        Measure<Integer> functions = sensorContext.measure(inputFile.key(), CoreMetrics.FUNCTIONS);
+        assertEquals(Integer.valueOf(3), complexity.value());
+        assertEquals(Integer.valueOf(3), functions.value());
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Saving 2 measure(s) for 1 file(s)");
+    }
+
+    @Test
+    public void close_withMergedMeasuresForManyFiles() {
+        List<DefaultInputFile> inputFiles = new ArrayList<>();
+        for (int i = 0; i < 10001; i++) {
+            inputFiles.add(createFile(i + ".m"));
+        }
+
+        try (MeasureBuffer measureBuffer = MeasureBuffer.create(sensorContext)) {
+            for (int i = 0; i < 2; i++) {
+                inputFiles.forEach(inputFile -> measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 1, Integer::sum));
+            }
+        }
+
+        for (DefaultInputFile inputFile : inputFiles) {
+            Measure<Integer> complexity = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+            assertEquals(Integer.valueOf(2), complexity.value());
+        }
+        assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+    }
+
+    @Test
+    public void add_withAlreadySavedMeasure() {
+        DefaultInputFile inputFile = createFile("a.m");
+        MeasureBuffer measureBuffer = MeasureBuffer.create(sensorContext);
+
+        measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 1);
+        measureBuffer.flush();
+        measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 2);
+        measureBuffer.close();
+
+        Measure<Integer> complexity = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        assertEquals(Integer.valueOf(1), complexity.value());
+        assertThat(logTester.logs(LoggerLevel.WARN))
+                .containsOnly("Measure complexity for a.m have already been saved");
+    }
+
+    @Test
+    public void drainTo_withDetachedBuffer() {
+        DefaultInputFile inputFile = createFile("a.m");
+        MeasureBuffer detachedBuffer = MeasureBuffer.createDetached();
+        detachedBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 2, Integer::sum);
+
+        try (MeasureBuffer measureBuffer = MeasureBuffer.create(sensorContext)) {
+            measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, 1, Integer::sum);
+            detachedBuffer.drainTo(measureBuffer);
+        }
+
+        Measure<Integer> complexity = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        assertEquals(Integer.valueOf(3), complexity.value());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void flush_withDetachedBuffer() {
+        MeasureBuffer measureBuffer = MeasureBuffer.createDetached();
+        measureBuffer.add(createFile("a.m"), CoreMetrics.COMPLEXITY, 1);
+
+        measureBuffer.flush();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.store.RecordStore;
+import me.raatiniemi.sonar.core.store.RecordStoreType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class RecordStoreTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public LogTester logTester = new LogTester();
+
+    @Nonnull
+    private RecordStore<SampleReport> createRecordStore(@Nonnull RecordStoreType type) {
+        return RecordStore.create(new SampleReportCodec(), type, temporaryFolder.getRoot());
+    }
+
+    private void appendAndRead(@Nonnull RecordStoreType type) {
+        int numberOfRecords = 100000;
+        try (RecordStore<SampleReport> recordStore = createRecordStore(type)) {
+            for (int i = 0; i < numberOfRecords; i++) {
+                recordStore.append(SampleReport.from("Sources/File" + i + ".m", String.valueOf(i)));
+            }
+
+            Iterator<SampleReport> iterator = recordStore.iterator();
+            for (int i = 0; i < numberOfRecords; i++) {
+                assertEquals(SampleReport.from("Sources/File" + i + ".m", String.valueOf(i)), iterator.next());
+            }
+
+            assertEquals(type, recordStore.getType());
+            assertEquals(numberOfRecords, recordStore.size());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void append_withHeapStore() {
+        appendAndRead(RecordStoreType.HEAP);
+    }
+
+    @Test
+    public void append_withDirectStore() {
+        appendAndRead(RecordStoreType.DIRECT);
+    }
+
+    @Test
+    public void append_withMappedStore() {
+        appendAndRead(RecordStoreType.MAPPED);
+
+        File[] files = temporaryFolder.getRoot().listFiles();
+        assertTrue(null == files || files.length == 0);
+    }
+
+    @Test
+    public void create_withUnavailableWorkDirectory() throws Exception {
+        File workDirectory = temporaryFolder.newFile("work");
+
+        try (RecordStore<SampleReport> recordStore = RecordStore.create(new SampleReportCodec(), RecordStoreType.MAPPED, workDirectory)) {
+            assertEquals(RecordStoreType.HEAP, recordStore.getType());
+        }
+        assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+    }
+
+    @Test
+    public void stream_withParsedRecords() {
+        SampleXmlRecordReportParser reportParser = SampleXmlRecordReportParser.create(XMLInputFactory.newInstance());
+
+        try (RecordStore<SampleReport> recordStore = createRecordStore(RecordStoreType.DIRECT)) {
+            reportParser.parse(Paths.get("src", "test", "resources", "report.xml").toFile(), recordStore::append);
+
+            List<SampleReport> actual = recordStore.stream().collect(Collectors.toList());
+
+            assertThat(actual).isNotEmpty();
+            assertEquals(recordStore.size(), actual.size());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ReportCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public LogTester logTester = new LogTester();
+
+    private final SampleReportCodec codec = new SampleReportCodec();
+
+    private File cacheDirectory;
+    private File reportFile;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = temporaryFolder.newFolder("cache");
+        reportFile = temporaryFolder.newFile("report.xml");
+        writeReport(reportFile, "report");
+    }
+
+    private static void writeReport(@Nonnull File file, @Nonnull String content) {
+        try {
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            fail(String.format("Unable to write report: %s", e.getMessage()));
+        }
+    }
+
+    @Nonnull
+    private ReportCache createReportCache(long maxSize) {
+        return createReportCache(Long.MAX_VALUE, maxSize);
+    }
+
+    @Nonnull
+    private ReportCache createReportCache(long maxAge, long maxSize) {
+        return ReportCache.create(cacheDirectory, maxAge, maxSize)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    @Test
+    public void get_withoutCachedReport() {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+
+        Optional<SampleReport> actual = reportCache.get(reportFile, codec);
+
+        assertFalse(actual.isPresent());
+    }
+
+    @Test
+    public void get_withCachedReport() {
+        SampleReport expected = SampleReport.from("a.m", "1");
+        createReportCache(Long.MAX_VALUE).put(reportFile, expected, codec);
+
+        Optional<SampleReport> actual = createReportCache(Long.MAX_VALUE).get(reportFile, codec);
+
+        assertEquals(Optional.of(expected), actual);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Using cached result for report " + reportFile);
+    }
+
+    @Test
+    public void get_withChangedReport() {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+        reportCache.put(reportFile, SampleReport.from("a.m", "1"), codec);
+        writeReport(reportFile, "modified");
+
+        Optional<SampleReport> actual = reportCache.get(reportFile, codec);
+
+        assertFalse(actual.isPresent());
+    }
+
+    @Test
+    public void get_withSameContentAndModificationTime() {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+        SampleReport expected = SampleReport.from("a.m", "1");
+        reportCache.put(reportFile, expected, codec);
+        writeReport(reportFile, "report");
+        assertTrue(reportFile.setLastModified(reportFile.lastModified() + 60000));
+
+        Optional<SampleReport> actual = reportCache.get(reportFile, codec);
+
+        assertEquals(Optional.of(expected), actual);
+    }
+
+    @Test
+    public void get_withSameContentAfterModificationTimeWasUpdated() {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+        SampleReport expected = SampleReport.from("a.m", "1");
+        reportCache.put(reportFile, expected, codec);
+        assertTrue(reportFile.setLastModified(reportFile.lastModified() + 60000));
+
+        Optional<SampleReport> first = reportCache.get(reportFile, codec);
+        Optional<SampleReport> second = reportCache.get(reportFile, codec);
+
+        assertEquals(Optional.of(expected), first);
+        assertEquals(Optional.of(expected), second);
+        assertThat(logTester.logs(LoggerLevel.DEBUG))
+                .containsOnlyOnce("Updated modification time of cached report " + reportFile);
+    }
+
+    @Test
+    public void create_withEntriesExceedingMaxAge() throws IOException {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+        File otherReportFile = temporaryFolder.newFile("other.xml");
+        writeReport(otherReportFile, "other");
+        reportCache.put(reportFile, SampleReport.from("a.m", "1"), codec);
+        File[] staleEntries = cacheDirectory.listFiles();
+        assertTrue(null != staleEntries && staleEntries.length == 1);
+        assertTrue(staleEntries[0].setLastModified(System.currentTimeMillis() - 2 * 86400000L));
+        reportCache.put(otherReportFile, SampleReport.from("b.m", "2"), codec);
+
+        ReportCache actual = createReportCache(86400000L, Long.MAX_VALUE);
+
+        assertFalse(actual.get(reportFile, codec).isPresent());
+        assertEquals(Optional.of(SampleReport.from("b.m", "2")), actual.get(otherReportFile, codec));
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Evicted 1 cached report(s) from " + cacheDirectory);
+    }
+
+    @Test
+    public void create_withEntriesExceedingMaxSize() throws IOException {
+        ReportCache reportCache = createReportCache(Long.MAX_VALUE);
+        File otherReportFile = temporaryFolder.newFile("other.xml");
+        writeReport(otherReportFile, "other");
+        reportCache.put(reportFile, SampleReport.from("a.m", "1"), codec);
+        reportCache.put(otherReportFile, SampleReport.from("b.m", "2"), codec);
+
+        createReportCache(1);
+
+        File[] entries = cacheDirectory.listFiles();
+        assertTrue(null != entries && entries.length == 0);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Evicted 2 cached report(s) from " + cacheDirectory);
+    }
+
+    @Test
+    public void parse_withCachingReportParser() {
+        AtomicInteger numberOfParsedReports = new AtomicInteger();
+        ReportParser<SampleReport> parser = file -> {
+            numberOfParsedReports.incrementAndGet();
+            return Optional.of(SampleReport.from("a.m", "1"));
+        };
+        ReportParser<SampleReport> cachingParser = CachingReportParser.create(parser, createReportCache(Long.MAX_VALUE), codec);
+
+        Optional<SampleReport> first = cachingParser.parse(reportFile);
+        Optional<SampleReport> second = cachingParser.parse(reportFile);
+
+        assertEquals(first, second);
+        assertEquals(1, numberOfParsedReports.get());
+    }
+}
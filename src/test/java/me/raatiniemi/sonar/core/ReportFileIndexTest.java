@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class ReportFileIndexTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public LogTester logTester = new LogTester();
+
+    private ReportFileIndex reportFileIndex;
+
+    @Before
+    public void setUp() {
+        reportFileIndex = new ReportFileIndex();
+
+        createFolder("a", "reports");
+        createFolder("b", "reports");
+        createFile("bazquz.xml");
+        createFile("a/bazquz.xml");
+        createFile("a/reports/bazquz.xml");
+        createFile("b/reports/foobar.xml");
+        createFile("b/reports/foobar.json");
+    }
+
+    private void createFolder(@Nonnull String... folderNames) {
+        try {
+            temporaryFolder.newFolder(folderNames);
+        } catch (IOException e) {
+            fail(String.format("Unable to create folder: %s", e.getMessage()));
+        }
+    }
+
+    private void createFile(@Nonnull String filename) {
+        try {
+            temporaryFolder.newFile(filename);
+        } catch (IOException e) {
+            fail(String.format("Unable to create file: %s", e.getMessage()));
+        }
+    }
+
+    @Test
+    public void findReportsMatching_withoutExistingDirectory() {
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(new File("/tmp/do-not-exists"));
+
+        Set<File> actual = reportFinder.findReportsMatching("*");
+
+        assertTrue(actual.isEmpty());
+        assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Report directory do not exsists /tmp/do-not-exists");
+    }
+
+    @Test
+    public void findReportsMatching_withSameResultAsReportFinder() {
+        Set<File> expected = ReportFinder.create(temporaryFolder.getRoot()).findReportsMatching("**/*.xml");
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(temporaryFolder.getRoot());
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(4);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withArchive() {
+        File archive = new File(temporaryFolder.getRoot(), "b/reports/reports.zip");
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive))) {
+            output.putNextEntry(new ZipEntry("nested/bazquz.xml"));
+            output.closeEntry();
+        } catch (IOException e) {
+            fail(String.format("Unable to create archive: %s", e.getMessage()));
+        }
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.emptyList(), Integer.MAX_VALUE, true);
+        Set<File> expected = ReportFinder.create(temporaryFolder.getRoot(), options).findReportsMatching("**/*.xml");
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(temporaryFolder.getRoot(), options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(5);
+        assertThat(actual).contains(new File(archive, "nested/bazquz.xml"));
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withMultiplePatterns() {
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(temporaryFolder.getRoot());
+
+        Map<String, Set<File>> actual = reportFinder.findReportsMatching(Arrays.asList("*/reports/*", "*.xml"));
+
+        assertThat(actual.get("*/reports/*")).hasSize(3);
+        assertThat(actual.get("*.xml")).containsOnly(new File(temporaryFolder.getRoot(), "bazquz.xml"));
+    }
+
+    @Test
+    public void findReportsMatching_withFileCreatedAfterIndexing() {
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(temporaryFolder.getRoot());
+        reportFinder.findReportsMatching("**/*.xml");
+        createFile("a/reports/foobar.xml");
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(4);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce(
+                "Indexing files in " + temporaryFolder.getRoot().getAbsolutePath()
+        );
+    }
+
+    @Test
+    public void findReportMatching_withinIndexedDirectory() {
+        reportFileIndex.forDirectory(temporaryFolder.getRoot()).findReportsMatching("**/*.xml");
+        File directory = new File(temporaryFolder.getRoot(), "b");
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(directory);
+
+        Optional<File> actual = reportFinder.findReportMatching("**/*.xml");
+
+        assertEquals(Optional.of(new File(directory, "reports/foobar.xml")), actual);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce(
+                "Indexing files in " + temporaryFolder.getRoot().getAbsolutePath()
+        );
+    }
+
+    @Test
+    public void findReportMatching_withoutMatchingReport() {
+        ReportPatternFinder reportFinder = reportFileIndex.forDirectory(temporaryFolder.getRoot());
+
+        Optional<File> actual = reportFinder.findReportMatching("**/*.html");
+
+        assertFalse(actual.isPresent());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ReportFilesTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File archive;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = temporaryFolder.newFile("reports.zip");
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive))) {
+            output.putNextEntry(new ZipEntry("nested/"));
+            output.closeEntry();
+            output.putNextEntry(new ZipEntry("nested/report.xml"));
+            output.write("<report />".getBytes(StandardCharsets.UTF_8));
+            output.closeEntry();
+            output.putNextEntry(new ZipEntry("report.xml.gz"));
+            output.write(gzip("<compressed />"));
+            output.closeEntry();
+        }
+    }
+
+    @Nonnull
+    private static byte[] gzip(@Nonnull String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Nonnull
+    private static String read(@Nonnull File reportFile) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream input = ReportFiles.open(reportFile)) {
+            byte[] buffer = new byte[16];
+            for (int length = input.read(buffer); length >= 0; length = input.read(buffer)) {
+                bytes.write(buffer, 0, length);
+            }
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void exists_withReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml");
+
+        assertTrue(ReportFiles.exists(reportFile));
+    }
+
+    @Test
+    public void exists_withArchiveEntry() {
+        assertTrue(ReportFiles.exists(new File(archive, "nested/report.xml")));
+        assertFalse(ReportFiles.exists(new File(archive, "nested")));
+        assertFalse(ReportFiles.exists(new File(archive, "report.xml")));
+        assertFalse(ReportFiles.exists(new File(temporaryFolder.getRoot(), "unknown/report.xml")));
+    }
+
+    @Test
+    public void open_withCompressedReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream output = new FileOutputStream(reportFile)) {
+            output.write(gzip("<report />"));
+        }
+
+        assertEquals("<report />", read(reportFile));
+    }
+
+    @Test
+    public void open_withArchiveEntry() throws IOException {
+        assertEquals("<report />", read(new File(archive, "nested/report.xml")));
+    }
+
+    @Test
+    public void open_withCompressedArchiveEntry() throws IOException {
+        assertEquals("<compressed />", read(new File(archive, "report.xml.gz")));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void open_withoutArchiveEntry() throws IOException {
+        ReportFiles.open(new File(archive, "report.xml"));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void open_withoutReportFile() throws IOException {
+        ReportFiles.open(new File(temporaryFolder.getRoot(), "report.xml"));
+    }
+
+    @Test
+    public void open_withMappedReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml");
+        try (OutputStream output = new FileOutputStream(reportFile)) {
+            output.write("<report />".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (InputStream input = ReportFiles.open(reportFile, ReportReadMode.MAPPED)) {
+            assertEquals('<', input.read());
+            assertEquals(4, input.skip(4));
+            assertEquals(5, input.available());
+
+            byte[] buffer = new byte[16];
+            assertEquals(5, input.read(buffer));
+            assertEquals("rt />", new String(buffer, 0, 5, StandardCharsets.UTF_8));
+            assertEquals(-1, input.read(buffer));
+        }
+    }
+
+    @Test
+    public void open_withEmptyMappedReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml");
+
+        try (InputStream input = ReportFiles.open(reportFile, ReportReadMode.MAPPED)) {
+            assertEquals(-1, input.read());
+        }
+    }
+}
@@ -27,10 +27,21 @@ import org.sonar.api.utils.log.LoggerLevel;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
@@ -60,6 +71,27 @@ public class ReportFinderTest {
         }
     }
 
+    private void createArchive(@Nonnull String filename, @Nonnull String... entryNames) {
+        File archive = new File(temporaryFolder.getRoot(), filename);
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (String entryName : entryNames) {
+                output.putNextEntry(new ZipEntry(entryName));
+                output.write(entryName.getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+        } catch (IOException e) {
+            fail(String.format("Unable to create archive: %s", e.getMessage()));
+        }
+    }
+
+    private void createFolder(@Nonnull String... folderNames) {
+        try {
+            temporaryFolder.newFolder(folderNames);
+        } catch (IOException e) {
+            fail(String.format("Unable to create folder: %s", e.getMessage()));
+        }
+    }
+
     @Test
     public void findReportsMatching_withoutExistingDirectory() {
         ReportPatternFinder reportFinder = ReportFinder.create(new File("/tmp/do-not-exists"));
@@ -131,6 +163,267 @@ public class ReportFinderTest {
         assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
     }
 
+    @Test
+    public void findReportsMatching_withFilesInSubdirectoriesMatchingPattern() {
+        createFolder("build", "reports");
+        createFolder("src");
+        Set<File> expected = new LinkedHashSet<>();
+        expected.add(createFile("build/reports/bazquz.xml").orElseThrow(IllegalStateException::new));
+        createFile("build/foobar.xml");
+        createFile("src/bazquz.xml");
+
+        Set<File> actual = reportFinder.findReportsMatching("build/*/*.xml");
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void findReportsMatching_withFilesInAnySubdirectoryMatchingPattern() {
+        createFolder("build", "reports");
+        Set<File> expected = new LinkedHashSet<>();
+        expected.add(createFile("bazquz.xml").orElseThrow(IllegalStateException::new));
+        expected.add(createFile("build/reports/bazquz.xml").orElseThrow(IllegalStateException::new));
+        createFile("build/reports/foobar.xml");
+
+        Set<File> actual = reportFinder.findReportsMatching("**/bazquz.xml");
+
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withParallelSearch() {
+        for (String folder : new String[]{"a", "b", "c"}) {
+            createFolder(folder, "reports");
+            createFile(folder + "/bazquz.xml");
+            createFile(folder + "/reports/bazquz.xml");
+            createFile(folder + "/reports/foobar.json");
+        }
+        createFile("bazquz.xml");
+        Set<File> expected = reportFinder.findReportsMatching("**/*.xml");
+        ReportPatternFinder reportFinder = ReportFinder.createParallel(temporaryFolder.getRoot(), 4);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(7);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withMultiplePatterns() {
+        createFolder("coverage");
+        createFolder("lint");
+        Set<File> coverage = new LinkedHashSet<>();
+        coverage.add(createFile("coverage/cobertura.xml").orElseThrow(IllegalStateException::new));
+        Set<File> lint = new LinkedHashSet<>();
+        lint.add(createFile("lint/oclint.xml").orElseThrow(IllegalStateException::new));
+        Set<File> reports = new LinkedHashSet<>();
+        reports.addAll(coverage);
+        reports.addAll(lint);
+        Map<String, Set<File>> expected = new LinkedHashMap<>();
+        expected.put("coverage/*.xml", coverage);
+        expected.put("lint/*.xml", lint);
+        expected.put("test/*.xml", Collections.emptySet());
+        expected.put("**/*.xml", reports);
+
+        Map<String, Set<File>> actual = reportFinder.findReportsMatching(expected.keySet());
+
+        assertEquals(expected, actual);
+        assertThat(actual.get("**/*.xml")).containsExactlyInAnyOrderElementsOf(reports);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(
+                "Found 1 report(s) matching coverage/*.xml in " + temporaryFolder.getRoot().getAbsolutePath(),
+                "No report(s) matching test/*.xml was found in " + temporaryFolder.getRoot().getAbsolutePath()
+        );
+    }
+
+    @Test
+    public void findReportsMatching_withExcludedDirectories() {
+        createFolder("node_modules", "module");
+        createFolder("build", "node_modules");
+        createFolder("Pods");
+        Set<File> expected = new LinkedHashSet<>();
+        expected.add(createFile("build/bazquz.xml").orElseThrow(IllegalStateException::new));
+        createFile("node_modules/module/bazquz.xml");
+        createFile("build/node_modules/bazquz.xml");
+        createFile("Pods/bazquz.xml");
+        ReportSearchOptions options = ReportSearchOptions.create(Arrays.asList("**/node_modules", "Pods"), Integer.MAX_VALUE);
+        ReportPatternFinder reportFinder = ReportFinder.create(temporaryFolder.getRoot(), options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withExcludedDirectoriesInParallelSearch() {
+        for (String folder : new String[]{"a", "b", "node_modules"}) {
+            createFolder(folder, "reports");
+            createFile(folder + "/reports/bazquz.xml");
+        }
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.singletonList("node_modules"), Integer.MAX_VALUE);
+        Set<File> expected = ReportFinder.create(temporaryFolder.getRoot(), options)
+                .findReportsMatching("**/*.xml");
+        ReportPatternFinder reportFinder = ReportFinder.createParallel(temporaryFolder.getRoot(), 4, options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(2);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withMaxDepth() {
+        createFolder("build", "reports");
+        Set<File> expected = new LinkedHashSet<>();
+        expected.add(createFile("bazquz.xml").orElseThrow(IllegalStateException::new));
+        expected.add(createFile("build/bazquz.xml").orElseThrow(IllegalStateException::new));
+        createFile("build/reports/bazquz.xml");
+        ReportPatternFinder reportFinder = ReportFinder.create(
+                temporaryFolder.getRoot(),
+                ReportSearchOptions.create(Collections.emptyList(), 1)
+        );
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void findReportsMatching_withArchive() {
+        createFolder("build");
+        createArchive("build/reports.zip", "bazquz.xml", "nested/bazquz.xml", "nested/foobar.json", "../foobar.xml");
+        File root = temporaryFolder.getRoot();
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.emptyList(), Integer.MAX_VALUE, true);
+        ReportPatternFinder reportFinder = ReportFinder.create(root, options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).containsExactly(
+                new File(root, "build/reports.zip/bazquz.xml"),
+                new File(root, "build/reports.zip/nested/bazquz.xml")
+        );
+    }
+
+    @Test
+    public void findReportsMatching_withArchiveWithoutSearchingArchives() {
+        createFolder("build");
+        createArchive("build/reports.zip", "bazquz.xml");
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void findReportsMatching_withArchiveAndExcludedEntries() {
+        createArchive("reports.zip", "bazquz.xml", "node_modules/bazquz.xml", "a/b/bazquz.xml");
+        File root = temporaryFolder.getRoot();
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.singletonList("**/node_modules"), 2, true);
+        ReportPatternFinder reportFinder = ReportFinder.create(root, options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).containsExactly(new File(root, "reports.zip/bazquz.xml"));
+    }
+
+    @Test
+    public void findReportsMatching_withArchiveInParallelSearch() {
+        for (String folder : new String[]{"a", "b", "c"}) {
+            createFolder(folder);
+            createFile(folder + "/bazquz.xml");
+            createArchive(folder + "/reports.zip", "bazquz.xml", "reports/bazquz.xml");
+        }
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.emptyList(), Integer.MAX_VALUE, true);
+        Set<File> expected = ReportFinder.create(temporaryFolder.getRoot(), options)
+                .findReportsMatching("**/*.xml");
+        ReportPatternFinder reportFinder = ReportFinder.createParallel(temporaryFolder.getRoot(), 4, options);
+
+        Set<File> actual = reportFinder.findReportsMatching("**/*.xml");
+
+        assertThat(actual).hasSize(9);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_withNegativeMaxDepth() {
+        ReportSearchOptions.create(Collections.emptyList(), -1);
+    }
+
+    @Test
+    public void streamReportsMatching_withoutExistingDirectory() {
+        ReportPatternFinder reportFinder = ReportFinder.create(new File("/tmp/do-not-exists"));
+
+        List<File> actual = reportFinder.streamReportsMatching("*")
+                .collect(Collectors.toList());
+
+        assertTrue(actual.isEmpty());
+        assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Report directory do not exsists /tmp/do-not-exists");
+    }
+
+    @Test
+    public void streamReportsMatching_withFilesInSubdirectoriesMatchingPattern() {
+        for (String folder : new String[]{"a", "b", "c"}) {
+            createFolder(folder, "reports");
+            createFile(folder + "/bazquz.xml");
+            createFile(folder + "/reports/bazquz.xml");
+            createFile(folder + "/reports/foobar.json");
+        }
+        createFile("bazquz.xml");
+        Set<File> expected = reportFinder.findReportsMatching("**/*.xml");
+
+        List<File> actual = reportFinder.streamReportsMatching("**/*.xml")
+                .collect(Collectors.toList());
+
+        assertThat(actual).hasSize(7);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void streamReportsMatching_withExcludedDirectories() {
+        createFolder("DerivedData");
+        createFolder("build");
+        Set<File> expected = new LinkedHashSet<>();
+        expected.add(createFile("build/bazquz.xml").orElseThrow(IllegalStateException::new));
+        createFile("DerivedData/bazquz.xml");
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.singletonList("DerivedData"), Integer.MAX_VALUE);
+        ReportPatternFinder reportFinder = ReportFinder.create(temporaryFolder.getRoot(), options);
+
+        List<File> actual = reportFinder.streamReportsMatching("**/*.xml")
+                .collect(Collectors.toList());
+
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void streamReportsMatching_withArchive() {
+        createFolder("a");
+        createFolder("b");
+        createArchive("a/reports.zip", "bazquz.xml", "nested/bazquz.xml");
+        createFile("a/bazquz.xml");
+        createFile("b/bazquz.xml");
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.emptyList(), Integer.MAX_VALUE, true);
+        ReportPatternFinder reportFinder = ReportFinder.create(temporaryFolder.getRoot(), options);
+        Set<File> expected = reportFinder.findReportsMatching("**/*.xml");
+
+        List<File> actual = reportFinder.streamReportsMatching("**/*.xml")
+                .collect(Collectors.toList());
+
+        assertThat(actual).hasSize(4);
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void streamReportsMatching_withPartiallyConsumedStream() {
+        createFolder("a");
+        createFile("a/bazquz.xml");
+        createFile("a/foobar.xml");
+
+        try (Stream<File> reports = reportFinder.streamReportsMatching("**/*.xml")) {
+            Optional<File> actual = reports.findFirst();
+
+            assertTrue(actual.isPresent());
+        }
+    }
+
     @Test
     public void findReportMatching_withoutExistingDirectory() {
         ReportPatternFinder reportFinder = ReportFinder.create(new File("/tmp/do-not-exists"));
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class ReportPathPatternTest {
+    private static boolean matches(@Nonnull String pattern, @Nonnull String path) {
+        ReportPathPattern pathPattern = ReportPathPattern.compile(pattern);
+        String[] segments = path.split("/");
+
+        BitSet state = pathPattern.initial();
+        for (int i = 0; i < segments.length - 1; i++) {
+            state = pathPattern.next(state, segments[i]);
+        }
+
+        return pathPattern.matches(state, segments[segments.length - 1]);
+    }
+
+    private static boolean canMatchWithin(@Nonnull String pattern, @Nonnull String path) {
+        ReportPathPattern pathPattern = ReportPathPattern.compile(pattern);
+
+        BitSet state = pathPattern.initial();
+        for (String segment : path.split("/")) {
+            state = pathPattern.next(state, segment);
+        }
+
+        return !state.isEmpty();
+    }
+
+    @Test
+    public void matches_withLiteralPattern() {
+        assertTrue(matches("report.xml", "report.xml"));
+        assertFalse(matches("report.xml", "build/report.xml"));
+        assertTrue(matches("build/report.xml", "build/report.xml"));
+    }
+
+    @Test
+    public void matches_withWildcardPattern() {
+        assertTrue(matches("*.xml", "report.xml"));
+        assertFalse(matches("*.xml", "report.json"));
+        assertTrue(matches("report-?.xml", "report-1.xml"));
+        assertFalse(matches("report-?.xml", "report-10.xml"));
+        assertTrue(matches("build/*/report.xml", "build/reports/report.xml"));
+        assertFalse(matches("build/*/report.xml", "build/report.xml"));
+    }
+
+    @Test
+    public void matches_withAnyDirectoriesPattern() {
+        assertTrue(matches("**/report.xml", "report.xml"));
+        assertTrue(matches("**/report.xml", "a/b/c/report.xml"));
+        assertTrue(matches("build/**/*.xml", "build/report.xml"));
+        assertTrue(matches("build/**/*.xml", "build/a/b/report.xml"));
+        assertFalse(matches("build/**/*.xml", "src/a/report.xml"));
+        assertTrue(matches("build/", "build/a/report.xml"));
+        assertTrue(matches("**", "a/report.xml"));
+    }
+
+    @Test
+    public void matches_withGlobCharactersInPattern() {
+        assertTrue(matches("report{1}.xml", "report{1}.xml"));
+        assertTrue(matches("*[1].xml", "report[1].xml"));
+        assertFalse(matches("*[1].xml", "report1.xml"));
+    }
+
+    @Test
+    public void matches_withRegexCharactersInPattern() {
+        assertTrue(matches("report(1)+.x?l", "report(1)+.xml"));
+        assertFalse(matches("report(1)+.x?l", "report11.xml"));
+        assertTrue(matches("^report$-*.xml", "^report$-1.xml"));
+    }
+
+    @Test
+    public void matches_withNameThatIsNotAValidPath() {
+        ReportPathPattern pathPattern = ReportPathPattern.compile("*.xml");
+
+        assertTrue(pathPattern.matches(pathPattern.initial(), "report\u0000.xml"));
+    }
+
+    @Test
+    public void next_withPrunedDirectory() {
+        assertTrue(canMatchWithin("build/reports/*.xml", "build"));
+        assertTrue(canMatchWithin("build/reports/*.xml", "build/reports"));
+        assertFalse(canMatchWithin("build/reports/*.xml", "src"));
+        assertFalse(canMatchWithin("build/reports/*.xml", "build/reports/nested"));
+        assertFalse(canMatchWithin("*.xml", "build"));
+        assertTrue(canMatchWithin("**/*.xml", "a/b/c"));
+    }
+
+    @Test
+    public void matchingPatterns_withMultiplePatterns() {
+        ReportPathPattern pathPattern = ReportPathPattern.compile(Arrays.asList("build/*.xml", "**/report.xml", "src/*.xml"));
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(1);
+
+        BitSet state = pathPattern.next(pathPattern.initial(), "build");
+        BitSet actual = pathPattern.matchingPatterns(state, "report.xml");
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void next_withExcludedDirectory() {
+        ReportSearchOptions options = ReportSearchOptions.create(Arrays.asList("**/node_modules", "Pods"), Integer.MAX_VALUE);
+        ReportPathPattern pathPattern = ReportPathPattern.compile(Collections.singletonList("**/*.xml"), options);
+
+        BitSet build = pathPattern.next(pathPattern.initial(), "build");
+
+        assertFalse(build.isEmpty());
+        assertTrue(pathPattern.next(build, "node_modules").isEmpty());
+        assertFalse(pathPattern.next(build, "Pods").isEmpty());
+        assertTrue(pathPattern.next(pathPattern.initial(), "Pods").isEmpty());
+    }
+
+    @Test
+    public void matches_withExcludedFile() {
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.singletonList("**/*-old.xml"), Integer.MAX_VALUE);
+        ReportPathPattern pathPattern = ReportPathPattern.compile(Collections.singletonList("**/*.xml"), options);
+
+        BitSet state = pathPattern.next(pathPattern.initial(), "build");
+
+        assertTrue(pathPattern.matches(state, "report.xml"));
+        assertFalse(pathPattern.matches(state, "report-old.xml"));
+        assertTrue(pathPattern.matchingPatterns(state, "report-old.xml").isEmpty());
+    }
+
+    @Test
+    public void next_withMaxDepth() {
+        ReportSearchOptions options = ReportSearchOptions.create(Collections.emptyList(), 1);
+        ReportPathPattern pathPattern = ReportPathPattern.compile(Collections.singletonList("**/*.xml"), options);
+
+        BitSet build = pathPattern.next(pathPattern.initial(), "build");
+
+        assertTrue(pathPattern.matches(build, "report.xml"));
+        assertTrue(pathPattern.next(build, "reports").isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.store.RecordCodec;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+final class SampleReportCodec implements RecordCodec<SampleReport> {
+    @Override
+    public void write(@Nonnull SampleReport record, @Nonnull DataOutput output) throws IOException {
+        output.writeUTF(record.getFilename());
+        output.writeUTF(record.getValue());
+    }
+
+    @Nonnull
+    @Override
+    public SampleReport read(@Nonnull DataInput input) throws IOException {
+        return SampleReport.from(input.readUTF(), input.readUTF());
+    }
+}
@@ -17,41 +17,46 @@
 
 package me.raatiniemi.sonar.core;
 
-import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.measures.CoreMetrics;
-import org.sonar.api.measures.Metric;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
-public class SampleSensorPersistence extends SensorPersistence<SampleReport> {
+public class SampleSensorPersistence extends SensorPersistence<SampleReport> implements MeasurePreparer<SampleReport> {
     private SampleSensorPersistence(@Nonnull SensorContext context) {
         super(context);
     }
 
+    private SampleSensorPersistence(@Nonnull SensorContext context, @Nonnull Set<String> languages) {
+        super(context, languages);
+    }
+
     @Nonnull
     static SampleSensorPersistence create(@Nonnull SensorContext context) {
         return new SampleSensorPersistence(context);
     }
 
+    @Nonnull
+    static SampleSensorPersistence create(@Nonnull SensorContext context, @Nonnull Set<String> languages) {
+        return new SampleSensorPersistence(context, languages);
+    }
+
     @Override
     public void saveMeasures(@Nonnull Collection<SampleReport> measures) {
-        for (SampleReport measure : measures) {
-            FilePredicate filePredicate = getContext().fileSystem().predicates().hasPath(measure.getFilename());
-            Optional<InputFile> inputFile = buildInputFile(filePredicate, measure.getFilename());
-            if (!inputFile.isPresent()) {
-                continue;
-            }
-
-            //noinspection unchecked
-            getContext().newMeasure()
-                    .on(inputFile.get())
-                    .forMetric((Metric) CoreMetrics.COMPLEXITY)
-                    .withValue(Integer.parseInt(measure.getValue()))
-                    .save();
+        saveMeasures(measures.iterator());
+    }
+
+    @Override
+    public void prepare(@Nonnull SampleReport measure, @Nonnull MeasureBuffer measureBuffer) {
+        Optional<InputFile> inputFile = buildInputFile(measure.getFilename());
+        if (!inputFile.isPresent()) {
+            return;
         }
+
+        measureBuffer.add(inputFile.get(), CoreMetrics.COMPLEXITY, Integer.parseInt(measure.getValue()), Integer::sum);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.xml.XmlRecordReportParser;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.function.Consumer;
+
+class SampleXmlRecordReportParser extends XmlRecordReportParser<SampleReport> {
+    private SampleXmlRecordReportParser(@Nonnull XMLInputFactory inputFactory) {
+        super(inputFactory);
+    }
+
+    static SampleXmlRecordReportParser create(@Nonnull XMLInputFactory inputFactory) {
+        return new SampleXmlRecordReportParser(inputFactory);
+    }
+
+    @Override
+    protected void parse(@Nonnull XMLStreamReader reader, @Nonnull Consumer<SampleReport> consumer)
+            throws XMLStreamException {
+        while (nextElement(reader, "file")) {
+            consumer.accept(SampleReport.from(getAttribute(reader, "filename"), getAttribute(reader, "value")));
+        }
+    }
+}
@@ -26,12 +26,16 @@ import javax.xml.parsers.DocumentBuilder;
 import java.util.Optional;
 
 class SampleXmlReportParser extends XmlReportParser<SampleReport> {
-    private SampleXmlReportParser(@Nonnull DocumentBuilder documentBuilder) {
-        super(documentBuilder);
+    private SampleXmlReportParser(@Nonnull DocumentBuilder documentBuilder, @Nonnull ReportReadMode readMode) {
+        super(documentBuilder, readMode);
     }
 
     static SampleXmlReportParser create(@Nonnull DocumentBuilder documentBuilder) {
-        return new SampleXmlReportParser(documentBuilder);
+        return create(documentBuilder, ReportReadMode.STREAM);
+    }
+
+    static SampleXmlReportParser create(@Nonnull DocumentBuilder documentBuilder, @Nonnull ReportReadMode readMode) {
+        return new SampleXmlReportParser(documentBuilder, readMode);
     }
 
     @Nonnull
@@ -26,6 +26,7 @@ import javax.annotation.Nonnull;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.File;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 class SampleXmlReportSensor extends XmlReportSensor {
@@ -78,4 +79,9 @@ class SampleXmlReportSensor extends XmlReportSensor {
         SampleXmlReportParser parser = SampleXmlReportParser.create(documentBuilder.get());
         return parser.parse(value.get());
     }
+
+    @Nonnull
+    List<SampleReport> parseAvailableReports(@Nonnull File projectDirectory) {
+        return parseAvailableReports(streamAvailableReports(projectDirectory), SampleXmlReportParser::create);
+    }
 }
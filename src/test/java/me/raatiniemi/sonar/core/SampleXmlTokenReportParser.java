@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.xml.XmlTokenReportParser;
+import me.raatiniemi.sonar.core.xml.XmlTokenizer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+class SampleXmlTokenReportParser extends XmlTokenReportParser<SampleReport> {
+    private SampleXmlTokenReportParser(@Nonnull ReportReadMode readMode) {
+        super(readMode);
+    }
+
+    static SampleXmlTokenReportParser create() {
+        return create(ReportReadMode.STREAM);
+    }
+
+    static SampleXmlTokenReportParser create(@Nonnull ReportReadMode readMode) {
+        return new SampleXmlTokenReportParser(readMode);
+    }
+
+    @Nonnull
+    @Override
+    protected SampleReport parse(@Nonnull XmlTokenizer tokenizer) throws IOException {
+        if (!tokenizer.nextElement("file")) {
+            return SampleReport.from("", "");
+        }
+
+        return SampleReport.from(tokenizer.getAttribute("filename"), tokenizer.getAttribute("value"));
+    }
+}
@@ -28,14 +28,32 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(JUnit4.class)
@@ -64,11 +82,21 @@ public class SensorPersistenceTest {
     @Nonnull
     private DefaultInputFile createFileForLanguage(@Nullable String language) {
         return new TestInputFileBuilder(sensorContext.module().key(), "basename")
+                .setModuleBaseDir(sensorContext.fileSystem().baseDirPath())
                 .initMetadata("1")
                 .setLanguage(language)
                 .build();
     }
 
+    @Nonnull
+    private DefaultInputFile createFile(@Nonnull String relativePath) {
+        return new TestInputFileBuilder(sensorContext.module().key(), relativePath)
+                .setModuleBaseDir(sensorContext.fileSystem().baseDirPath())
+                .initMetadata("1")
+                .setLanguage("objc")
+                .build();
+    }
+
     private void addFileToFileSystem(@Nonnull InputFile inputFile) {
         sensorContext.fileSystem().add(inputFile);
     }
@@ -110,4 +138,299 @@ public class SensorPersistenceTest {
         assertTrue(value.isPresent());
         assertTrue(logTester.logs().isEmpty());
     }
+
+    @Test
+    public void buildInputFileFromPath_withoutAvailablePath() {
+        sensorPersistence.buildInputFile("basename");
+        Optional<InputFile> value = sensorPersistence.buildInputFile("basename");
+
+        assertFalse(value.isPresent());
+        assertThat(logTester.logs(LoggerLevel.WARN)).containsOnlyOnce("No path available for basename");
+    }
+
+    @Test
+    public void buildInputFileFromPath_withUnknownLanguage() {
+        addFileToFileSystem(createFileForLanguage("swift"));
+
+        sensorPersistence.buildInputFile("basename");
+        Optional<InputFile> value = sensorPersistence.buildInputFile("basename");
+
+        assertFalse(value.isPresent());
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce("basename belong to language swift");
+    }
+
+    @Test
+    public void buildInputFileFromPath_withRelativePath() {
+        DefaultInputFile inputFile = createFileForLanguage("objc");
+        addFileToFileSystem(inputFile);
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("./basename");
+
+        assertEquals(Optional.of(inputFile), value);
+    }
+
+    @Test
+    public void buildInputFileFromPath_withAbsolutePath() {
+        DefaultInputFile inputFile = createFileForLanguage("objc");
+        addFileToFileSystem(inputFile);
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile(Paths.get(inputFile.uri()).toString());
+
+        assertEquals(Optional.of(inputFile), value);
+    }
+
+    @Test
+    public void buildInputFileFromPath_withPathFromOtherMachine() {
+        DefaultInputFile inputFile = createFile("App/Sources/basename.m");
+        addFileToFileSystem(inputFile);
+        addFileToFileSystem(createFile("Tests/Sources/basename.m"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("/Users/ci/build/App/Sources/basename.m");
+
+        assertEquals(Optional.of(inputFile), value);
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(
+                "Resolved /Users/ci/build/App/Sources/basename.m to App/Sources/basename.m using the path suffix"
+        );
+    }
+
+    @Test
+    public void buildInputFileFromPath_withWindowsPathFromOtherMachine() {
+        DefaultInputFile inputFile = createFile("App/Sources/basename.m");
+        addFileToFileSystem(inputFile);
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("C:\\ci\\App\\Sources\\basename.m");
+
+        assertEquals(Optional.of(inputFile), value);
+    }
+
+    @Test
+    public void buildInputFileFromPath_withInvalidPath() {
+        addFileToFileSystem(createFile("App/Foo.m"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("App/Foo\u0000.m");
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("No path available for App/Foo\u0000.m"));
+    }
+
+    @Test
+    public void buildInputFileFromPath_withSameFileNameInOtherDirectory() {
+        addFileToFileSystem(createFile("App/Foo.m"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("lib/Foo.m");
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("No path available for lib/Foo.m"));
+    }
+
+    @Test
+    public void buildInputFileFromPath_withNestedPathsFromOtherMachine() {
+        DefaultInputFile inputFile = createFile("Sources/basename.m");
+        addFileToFileSystem(inputFile);
+        addFileToFileSystem(createFile("App/Sources/basename.m"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("/Users/ci/Tests/Sources/basename.m");
+
+        assertEquals(Optional.of(inputFile), value);
+    }
+
+    @Test
+    public void buildInputFileFromPath_withAmbiguousPathFromOtherMachine() {
+        addFileToFileSystem(createFile("App/Sources/basename.m"));
+        addFileToFileSystem(createFile("Tests/Sources/basename.m"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile("/Users/ci/build/Sources/basename.m");
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs(LoggerLevel.WARN).contains("No path available for /Users/ci/build/Sources/basename.m"));
+    }
+
+    @Test
+    public void buildInputFile_withConfiguredLanguages() {
+        Set<String> languages = new HashSet<>(Arrays.asList("objc", "swift"));
+        SampleSensorPersistence sensorPersistence = SampleSensorPersistence.create(sensorContext, languages);
+        addFileToFileSystem(createFileForLanguage("swift"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile(filePredicate, "basename");
+
+        assertTrue(value.isPresent());
+    }
+
+    @Test
+    public void buildInputFile_withoutConfiguredLanguage() {
+        Set<String> languages = new HashSet<>(Arrays.asList("objc", "swift"));
+        SampleSensorPersistence sensorPersistence = SampleSensorPersistence.create(sensorContext, languages);
+        addFileToFileSystem(createFileForLanguage("c++"));
+
+        Optional<InputFile> value = sensorPersistence.buildInputFile(filePredicate, "basename");
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs(LoggerLevel.DEBUG).contains("basename belong to language c++"));
+    }
+
+    @Test
+    public void saveMeasures_withStream() {
+        DefaultInputFile inputFile = createFile("a.m");
+        addFileToFileSystem(inputFile);
+        addFileToFileSystem(createFile("b.m"));
+        Stream<SampleReport> measures = Stream.of(
+                SampleReport.from("a.m", "1"),
+                SampleReport.from("b.m", "2"),
+                SampleReport.from("a.m", "3")
+        );
+
+        sensorPersistence.saveMeasures(measures);
+
+        Measure<Integer> measure = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        assertEquals(Integer.valueOf(4), measure.value());
+    }
+
+    @Test
+    public void openSink_withMeasures() {
+        DefaultInputFile inputFile = createFile("a.m");
+        addFileToFileSystem(inputFile);
+
+        try (MeasureSink<SampleReport> sink = sensorPersistence.openSink()) {
+            sink.accept(SampleReport.from("a.m", "1"));
+
+            assertNull(sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY_KEY));
+        }
+
+        assertNotNull(sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY_KEY));
+    }
+
+    @Nonnull
+    private SensorPersistence<SampleReport> createAggregatingPersistence() {
+        return new SensorPersistence<SampleReport>(sensorContext) {
+            @Override
+            public void saveMeasures(@Nonnull Collection<SampleReport> measures) {
+                Map<InputFile, Integer> complexity = new LinkedHashMap<>();
+                for (SampleReport measure : measures) {
+                    buildInputFile(measure.getFilename())
+                            .ifPresent(inputFile -> complexity.merge(inputFile, Integer.parseInt(measure.getValue()), Integer::sum));
+                }
+
+                complexity.forEach((inputFile, value) -> getContext().<Integer>newMeasure()
+                        .on(inputFile)
+                        .forMetric(CoreMetrics.COMPLEXITY)
+                        .withValue(value)
+                        .save());
+            }
+        };
+    }
+
+    @Test
+    public void saveMeasures_withStreamWithoutMeasurePreparer() {
+        DefaultInputFile inputFile = createFile("a.m");
+        addFileToFileSystem(inputFile);
+        addFileToFileSystem(createFile("b.m"));
+        Stream<SampleReport> measures = Stream.of(
+                SampleReport.from("a.m", "1"),
+                SampleReport.from("b.m", "2"),
+                SampleReport.from("a.m", "3")
+        );
+
+        createAggregatingPersistence().saveMeasures(measures);
+
+        Measure<Integer> measure = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        assertEquals(Integer.valueOf(4), measure.value());
+    }
+
+    @Test
+    public void saveMeasures_withIteratorInBatches() {
+        List<Collection<String>> batches = new ArrayList<>();
+        SensorMeasurePersistence<String> persistence = batches::add;
+        List<String> measures = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            measures.add(String.valueOf(i));
+        }
+
+        persistence.saveMeasures(measures.iterator());
+
+        assertThat(batches).extracting(Collection::size).containsExactly(1000, 500);
+    }
+
+    @Test
+    public void saveMeasuresInParallel_withDuplicateMeasures() {
+        List<DefaultInputFile> inputFiles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DefaultInputFile inputFile = createFile(i + ".m");
+            addFileToFileSystem(inputFile);
+            inputFiles.add(inputFile);
+        }
+        List<SampleReport> measures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            measures.add(SampleReport.from((i % 10) + ".m", "1"));
+        }
+
+        sensorPersistence.saveMeasuresInParallel(measures, sensorPersistence, 4);
+
+        for (DefaultInputFile inputFile : inputFiles) {
+            Measure<Integer> measure = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+            assertEquals(Integer.valueOf(100), measure.value());
+        }
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Preparing 1000 measure(s) using 4 thread(s)");
+    }
+
+    @Test
+    public void saveMeasuresInParallel_withPreparer() {
+        DefaultInputFile inputFile = createFile("a.m");
+        addFileToFileSystem(inputFile);
+        List<SampleReport> measures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            measures.add(SampleReport.from("a.m", "1"));
+        }
+        SensorPersistence<SampleReport> persistence = createAggregatingPersistence();
+        Set<Thread> preparingThreads = Collections.synchronizedSet(new HashSet<>());
+
+        persistence.saveMeasuresInParallel(measures, (measure, measureBuffer) -> {
+            preparingThreads.add(Thread.currentThread());
+            measureBuffer.add(inputFile, CoreMetrics.COMPLEXITY, Integer.parseInt(measure.getValue()), Integer::sum);
+        }, 4);
+
+        Measure<Integer> measure = sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY);
+        assertEquals(Integer.valueOf(100), measure.value());
+        assertThat(preparingThreads).doesNotContain(Thread.currentThread());
+    }
+
+    @Test
+    public void saveMeasuresInParallel_withFailingPreparer() {
+        DefaultInputFile inputFile = createFile("a.m");
+        addFileToFileSystem(inputFile);
+        List<SampleReport> measures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            measures.add(SampleReport.from("a.m", String.valueOf(i)));
+        }
+
+        assertThatThrownBy(() -> sensorPersistence.saveMeasuresInParallel(measures, (measure, measureBuffer) -> {
+            if ("50".equals(measure.getValue())) {
+                throw new IllegalStateException("Unable to prepare measure");
+            }
+
+            sensorPersistence.prepare(measure, measureBuffer);
+        }, 4)).isInstanceOf(IllegalStateException.class);
+
+        assertNull(sensorContext.measure(inputFile.key(), CoreMetrics.COMPLEXITY_KEY));
+    }
+
+    @Test
+    public void saveCoverage_withLineHits() {
+        DefaultInputFile inputFile = new TestInputFileBuilder(sensorContext.module().key(), "a.m")
+                .setModuleBaseDir(sensorContext.fileSystem().baseDirPath())
+                .setLines(3)
+                .setLanguage("objc")
+                .build();
+        addFileToFileSystem(inputFile);
+        LineHits lineHits = LineHits.create();
+        lineHits.add(1, 2);
+        lineHits.add(2, 0);
+        lineHits.add(4, 1);
+
+        sensorPersistence.saveCoverage(inputFile, lineHits);
+
+        assertEquals(Integer.valueOf(2), sensorContext.lineHits(inputFile.key(), 1));
+        assertEquals(Integer.valueOf(0), sensorContext.lineHits(inputFile.key(), 2));
+        assertNull(sensorContext.lineHits(inputFile.key(), 3));
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Skipped 1 line(s) beyond the end of " + inputFile);
+    }
 }
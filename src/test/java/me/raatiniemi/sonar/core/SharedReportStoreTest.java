@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class SharedReportStoreTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SampleXmlRecordReportParser parser = SampleXmlRecordReportParser.create(XMLInputFactory.newInstance());
+    private final AtomicInteger numberOfParsedReports = new AtomicInteger();
+
+    private SharedReportStore sharedReportStore;
+    private File reportFile;
+
+    @Before
+    public void setUp() throws IOException {
+        sharedReportStore = new SharedReportStore();
+
+        reportFile = temporaryFolder.newFile("report.xml");
+        List<String> lines = Arrays.asList(
+                "<modules><module>",
+                "<file filename=\"app/a.m\" value=\"1\" />",
+                "<file filename=\"lib/b.m\" value=\"2\" />",
+                "<file filename=\"app/c.m\" value=\"3\" />",
+                "<file filename=\"" + new File(temporaryFolder.getRoot(), "lib/d.m").getAbsolutePath() + "\" value=\"4\" />",
+                "<file filename=\"application/e.m\" value=\"5\" />",
+                "</module></modules>"
+        );
+        Files.write(reportFile.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    private List<SampleReport> findRecords(
+            String cacheKey,
+            String module,
+            Function<SampleReport, String> pathOf,
+            String... childModules
+    ) {
+        List<File> childModuleBaseDirectories = new ArrayList<>();
+        for (String childModule : childModules) {
+            childModuleBaseDirectories.add(new File(temporaryFolder.getRoot(), childModule));
+        }
+
+        return sharedReportStore.findRecords(
+                cacheKey,
+                reportFile,
+                (file, consumer) -> {
+                    numberOfParsedReports.incrementAndGet();
+                    return parser.parse(file, consumer);
+                },
+                pathOf,
+                temporaryFolder.getRoot(),
+                new File(temporaryFolder.getRoot(), module),
+                childModuleBaseDirectories
+        );
+    }
+
+    private List<SampleReport> findRecords(String module, String... childModules) {
+        return findRecords("sample.report", module, SampleReport::getFilename, childModules);
+    }
+
+    private static Function<SampleReport, String> flattenInto(String directory) {
+        return report -> directory + "/" + Paths.get(report.getFilename()).getFileName();
+    }
+
+    @Test
+    public void findRecords_withModules() {
+        List<SampleReport> app = findRecords("app");
+        List<SampleReport> lib = findRecords("lib");
+
+        assertThat(app).extracting(SampleReport::getValue).containsExactly("1", "3");
+        assertThat(lib).extracting(SampleReport::getValue).containsExactly("2", "4");
+        assertEquals(1, numberOfParsedReports.get());
+    }
+
+    @Test
+    public void findRecords_withoutRecordsForModule() {
+        List<SampleReport> actual = findRecords("tests");
+
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void findRecords_withNestedModules() {
+        List<SampleReport> app = findRecords("app");
+        List<SampleReport> root = findRecords("", "app");
+
+        assertThat(app).extracting(SampleReport::getValue).containsExactly("1", "3");
+        assertThat(root).extracting(SampleReport::getValue).containsExactlyInAnyOrder("2", "4", "5");
+        assertEquals(1, numberOfParsedReports.get());
+    }
+
+    @Test
+    public void findRecords_withDifferentCacheKeys() {
+        List<SampleReport> app = findRecords("sample.app", "app", flattenInto("app"));
+        List<SampleReport> lib = findRecords("sample.lib", "app", flattenInto("lib"));
+
+        assertThat(app).extracting(SampleReport::getValue).containsExactlyInAnyOrder("1", "2", "3", "4", "5");
+        assertThat(lib).isEmpty();
+        assertEquals(2, numberOfParsedReports.get());
+    }
+
+    @Test
+    public void release_withParsedReport() {
+        findRecords("app");
+
+        sharedReportStore.release(reportFile);
+        List<SampleReport> actual = findRecords("app");
+
+        assertThat(actual).extracting(SampleReport::getValue).containsExactly("1", "3");
+        assertEquals(2, numberOfParsedReports.get());
+    }
+
+    @Test
+    public void release_withoutParsedReport() {
+        sharedReportStore.release(reportFile);
+
+        assertEquals(0, numberOfParsedReports.get());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class XmlRecordReportParserTest {
+    @Rule
+    public final LogTester logTester = new LogTester();
+
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+    private final Path resourcePath = Paths.get("src", "test", "resources");
+    private final List<SampleReport> records = new ArrayList<>();
+
+    private SampleXmlRecordReportParser reportParser;
+
+    @Before
+    public void setUp() {
+        reportParser = SampleXmlRecordReportParser.create(factory);
+    }
+
+    @Test
+    public void parse_withoutReportFile() {
+        File file = new File("unknown-filename");
+
+        boolean value = reportParser.parse(file, records::add);
+
+        assertFalse(value);
+        assertTrue(records.isEmpty());
+        assertTrue(logTester.logs().contains("No XML report exist at path: unknown-filename"));
+    }
+
+    @Test
+    public void parse_withEmptyReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "empty.xml");
+
+        boolean value = reportParser.parse(documentPath.toFile(), records::add);
+
+        assertFalse(value);
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void parse_withReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "report.xml");
+
+        boolean value = reportParser.parse(documentPath.toFile(), records::add);
+
+        assertTrue(value);
+        assertEquals(Collections.singletonList(SampleReport.from("basename", "3")), records);
+    }
+}
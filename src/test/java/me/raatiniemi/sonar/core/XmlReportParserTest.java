@@ -20,15 +20,23 @@ package me.raatiniemi.sonar.core;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.sonar.api.utils.log.LogTester;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -39,6 +47,9 @@ public class XmlReportParserTest {
     @Rule
     public final LogTester logTester = new LogTester();
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
     private final Path resourcePath = Paths.get("src", "test", "resources");
 
@@ -78,4 +89,62 @@ public class XmlReportParserTest {
         assertTrue(value.isPresent());
         assertEquals(report, value.get());
     }
+
+    @Test
+    public void parse_withCompressedReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(reportFile))) {
+            output.write(Files.readAllBytes(resourcePath.resolve("report.xml")));
+        }
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(reportFile);
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+
+    @Test
+    public void parse_withReportFileInArchive() throws IOException {
+        File archive = temporaryFolder.newFile("reports.zip");
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive))) {
+            output.putNextEntry(new ZipEntry("nested/report.xml"));
+            output.write(Files.readAllBytes(resourcePath.resolve("report.xml")));
+            output.closeEntry();
+        }
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(new File(archive, "nested/report.xml"));
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+
+    @Test
+    public void parse_withReadModes() throws Exception {
+        Path documentPath = Paths.get(resourcePath.toString(), "report.xml");
+        SampleReport report = SampleReport.from("basename", "3");
+
+        for (ReportReadMode readMode : ReportReadMode.values()) {
+            SampleXmlReportParser reportParser = SampleXmlReportParser.create(factory.newDocumentBuilder(), readMode);
+
+            Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+            assertTrue(value.isPresent());
+            assertEquals(report, value.get());
+        }
+    }
+
+    @Test
+    public void parse_withMappedCompressedReportFile() throws Exception {
+        File reportFile = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(reportFile))) {
+            output.write(Files.readAllBytes(resourcePath.resolve("report.xml")));
+        }
+        SampleXmlReportParser reportParser = SampleXmlReportParser.create(factory.newDocumentBuilder(), ReportReadMode.MAPPED);
+
+        Optional<SampleReport> value = reportParser.parse(reportFile);
+
+        assertEquals(Optional.of(SampleReport.from("basename", "3")), value);
+    }
 }
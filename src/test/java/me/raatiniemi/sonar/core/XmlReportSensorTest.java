@@ -18,6 +18,8 @@
 package me.raatiniemi.sonar.core;
 
 import me.raatiniemi.sonar.core.internal.FileSystemHelpers;
+import me.raatiniemi.sonar.core.store.RecordStore;
+import me.raatiniemi.sonar.core.store.RecordStoreType;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,14 +34,20 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import javax.annotation.Nonnull;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(JUnit4.class)
@@ -77,6 +85,21 @@ public class XmlReportSensorTest {
         }
     }
 
+    private void createReportFile(@Nonnull String relativePath, @Nonnull String filename) {
+        try {
+            List<String> reportLines = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(resourcePath.toString(), "report.xml"))) {
+                reportLines.add(line.replace("\"basename\"", "\"" + filename + "\""));
+            }
+
+            Path destination = Paths.get(temporaryFolder.getRoot().getAbsolutePath(), relativePath);
+            Files.createDirectories(destination.getParent());
+            Files.write(destination, reportLines);
+        } catch (IOException e) {
+            fail(String.format("Unable to create report file: %s", e.getMessage()));
+        }
+    }
+
     @Test
     public void execute_withDefaultReportPath() {
         DefaultInputFile inputFile = helpers.createFile("basename", "objc");
@@ -103,4 +126,118 @@ public class XmlReportSensorTest {
         assertThat(logTester.logs(LoggerLevel.DEBUG))
                 .contains("Found report path for configuration key report.path.key");
     }
+
+    @Test
+    public void parseAvailableReports_withReportsInParallel() {
+        settings.setProperty("report.path.key", "**/report.xml");
+        settings.setProperty("report.path.key.parserThreads", "2");
+        createReportFile("a/report.xml", "a");
+        createReportFile("b/report.xml", "b");
+        createReportFile("c/report.xml", "c");
+        List<String> expected = new ArrayList<>();
+        ReportFinder.create(temporaryFolder.getRoot())
+                .findReportsMatching("**/report.xml")
+                .forEach(report -> expected.add(report.getParentFile().getName()));
+
+        List<SampleReport> actual = sensor.parseAvailableReports(temporaryFolder.getRoot());
+
+        List<String> filenames = new ArrayList<>();
+        actual.forEach(report -> filenames.add(report.getFilename()));
+        assertEquals(expected, filenames);
+        assertThat(logTester.logs(LoggerLevel.DEBUG))
+                .contains("Parsing 3 report(s) using 2 thread(s)");
+    }
+
+    @Test
+    public void parseAvailableReports_withExclusionsAndMaxDepth() {
+        settings.setProperty("report.path.key", "**/report.xml");
+        settings.setProperty("report.path.key.exclusions", "**/node_modules");
+        settings.setProperty("report.path.key.maxDepth", "1");
+        createReportFile("a/report.xml", "a");
+        createReportFile("a/b/report.xml", "b");
+        createReportFile("node_modules/report.xml", "node_modules");
+
+        List<SampleReport> actual = sensor.parseAvailableReports(temporaryFolder.getRoot());
+
+        assertThat(actual).extracting(SampleReport::getFilename).containsExactly("a");
+        assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(
+                "Found report exclusions for configuration key report.path.key.exclusions",
+                "Found report max depth for configuration key report.path.key.maxDepth"
+        );
+    }
+
+    @Test
+    public void createRecordStore_withConfiguredStore() {
+        settings.setProperty("report.path.key.recordStore", "mapped");
+
+        try (RecordStore<SampleReport> recordStore = sensor.createRecordStore(new SampleReportCodec(), temporaryFolder.getRoot())) {
+            assertEquals(RecordStoreType.MAPPED, recordStore.getType());
+        }
+    }
+
+    @Test
+    public void createRecordStore_withUnknownStore() {
+        settings.setProperty("report.path.key.recordStore", "disk");
+
+        try (RecordStore<SampleReport> recordStore = sensor.createRecordStore(new SampleReportCodec(), temporaryFolder.getRoot())) {
+            assertEquals(RecordStoreType.HEAP, recordStore.getType());
+        }
+        assertThat(logTester.logs(LoggerLevel.WARN))
+                .containsOnly("Unknown record store disk for configuration key report.path.key.recordStore, using heap");
+    }
+
+    @Test
+    public void readReportReadMode_withoutConfiguredMode() {
+        assertEquals(ReportReadMode.STREAM, sensor.readReportReadMode());
+    }
+
+    @Test
+    public void readReportReadMode_withConfiguredMode() {
+        settings.setProperty("report.path.key.readMode", "mapped");
+
+        assertEquals(ReportReadMode.MAPPED, sensor.readReportReadMode());
+    }
+
+    @Test
+    public void readReportReadMode_withUnknownMode() {
+        settings.setProperty("report.path.key.readMode", "direct");
+
+        assertEquals(ReportReadMode.STREAM, sensor.readReportReadMode());
+        assertThat(logTester.logs(LoggerLevel.WARN))
+                .containsOnly("Unknown read mode direct for configuration key report.path.key.readMode, using stream");
+    }
+
+    @Test
+    public void createCachingReportParser_withoutEnabledCache() {
+        ReportParser<SampleReport> parser = file -> Optional.empty();
+
+        ReportParser<SampleReport> actual = sensor.createCachingReportParser(parser, new SampleReportCodec(), temporaryFolder.getRoot());
+
+        assertSame(parser, actual);
+    }
+
+    @Test
+    public void createCachingReportParser_withEnabledCache() {
+        settings.setProperty("report.path.key.cache", "true");
+        settings.setProperty("report.path.key.cacheDirectory", new File(temporaryFolder.getRoot(), "cache").getAbsolutePath());
+        ReportParser<SampleReport> parser = file -> Optional.empty();
+
+        ReportParser<SampleReport> actual = sensor.createCachingReportParser(parser, new SampleReportCodec(), temporaryFolder.getRoot());
+
+        assertThat(actual).isInstanceOf(CachingReportParser.class);
+        assertTrue(new File(temporaryFolder.getRoot(), "cache/report.path.key").isDirectory());
+    }
+
+    @Test
+    public void parseAvailableReports_withDuplicateReports() {
+        settings.setProperty("report.path.key", "**/report.xml");
+        settings.setProperty("report.path.key.deduplicate", "true");
+        createReportFile("a/report.xml", "a");
+        createReportFile("b/report.xml", "a");
+        createReportFile("c/report.xml", "c");
+
+        List<SampleReport> actual = sensor.parseAvailableReports(temporaryFolder.getRoot());
+
+        assertThat(actual).extracting(SampleReport::getFilename).containsExactlyInAnyOrder("a", "c");
+    }
 }
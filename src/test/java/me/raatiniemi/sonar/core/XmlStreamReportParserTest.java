@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package me.raatiniemi.sonar.core;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class XmlStreamReportParserTest {
+    @Rule
+    public final LogTester logTester = new LogTester();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+    private final Path resourcePath = Paths.get("src", "test", "resources");
+
+    private SampleXmlStreamReportParser reportParser;
+
+    @Before
+    public void setUp() {
+        reportParser = SampleXmlStreamReportParser.create(factory);
+    }
+
+    @Test
+    public void parse_withoutReportFile() {
+        File file = new File("unknown-filename");
+
+        Optional<SampleReport> value = reportParser.parse(file);
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs().contains("No XML report exist at path: unknown-filename"));
+    }
+
+    @Test
+    public void parse_withEmptyReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "empty.xml");
+
+        Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+        assertFalse(value.isPresent());
+    }
+
+    @Test
+    public void parse_withReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "report.xml");
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+
+    @Test
+    public void parse_withCompressedReportFile() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml.gz");
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(reportFile))) {
+            output.write(Files.readAllBytes(resourcePath.resolve("report.xml")));
+        }
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(reportFile);
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+
+    @Test
+    public void parse_withReportFileInArchive() throws IOException {
+        File archive = temporaryFolder.newFile("reports.zip");
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(archive))) {
+            output.putNextEntry(new ZipEntry("nested/report.xml"));
+            output.write(Files.readAllBytes(resourcePath.resolve("report.xml")));
+            output.closeEntry();
+        }
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(new File(archive, "nested/report.xml"));
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+}
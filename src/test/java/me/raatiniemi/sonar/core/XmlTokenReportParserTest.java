@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class XmlTokenReportParserTest {
+    @Rule
+    public final LogTester logTester = new LogTester();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Path resourcePath = Paths.get("src", "test", "resources");
+
+    private final SampleXmlTokenReportParser reportParser = SampleXmlTokenReportParser.create();
+
+    @Test
+    public void parse_withoutReportFile() {
+        File file = new File("unknown-filename");
+
+        Optional<SampleReport> value = reportParser.parse(file);
+
+        assertFalse(value.isPresent());
+        assertTrue(logTester.logs().contains("No XML report exist at path: unknown-filename"));
+    }
+
+    @Test
+    public void parse_withEmptyReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "empty.xml");
+
+        Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+        assertFalse(value.isPresent());
+    }
+
+    @Test
+    public void parse_withReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "report.xml");
+        SampleReport report = SampleReport.from("basename", "3");
+
+        Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+        assertTrue(value.isPresent());
+        assertEquals(report, value.get());
+    }
+
+    @Test
+    public void parse_withMappedReportFile() {
+        Path documentPath = Paths.get(resourcePath.toString(), "report.xml");
+        SampleXmlTokenReportParser reportParser = SampleXmlTokenReportParser.create(ReportReadMode.MAPPED);
+
+        Optional<SampleReport> value = reportParser.parse(documentPath.toFile());
+
+        assertEquals(Optional.of(SampleReport.from("basename", "3")), value);
+    }
+
+    @Test
+    public void parse_withExternalEntity() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml");
+        try (OutputStream output = new FileOutputStream(reportFile)) {
+            output.write(("<?xml version=\"1.0\"?>\n"
+                    + "<!DOCTYPE modules [<!ENTITY name SYSTEM \"file:///etc/passwd\">]>\n"
+                    + "<modules><file filename=\"&name;\" value=\"3\" /></modules>\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        Optional<SampleReport> value = reportParser.parse(reportFile);
+
+        assertFalse(value.isPresent());
+        assertThat(logTester.logs(LoggerLevel.ERROR)).containsOnly("Unable to process XML file named: " + reportFile);
+    }
+
+    @Test
+    public void parse_withSameResultAsStreamParser() throws IOException {
+        File reportFile = temporaryFolder.newFile("report.xml");
+        Files.write(reportFile.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!-- <file filename=\"comment\" /> -->\n"
+                + "<modules><![CDATA[<file filename=\"cdata\" />]]>\n"
+                + "  <file value='&lt;1&#x3E;' filename=\"src/caf\u00e9 &amp;\n&quot;main&quot;.m\"/>\n"
+                + "</modules>\n").getBytes(StandardCharsets.UTF_8));
+        Optional<SampleReport> expected = SampleXmlStreamReportParser.create(XMLInputFactory.newInstance())
+                .parse(reportFile);
+
+        Optional<SampleReport> actual = reportParser.parse(reportFile);
+
+        assertEquals(Optional.of(SampleReport.from("src/caf\u00e9 & \"main\".m", "<1>")), actual);
+        assertEquals(expected, actual);
+    }
+}
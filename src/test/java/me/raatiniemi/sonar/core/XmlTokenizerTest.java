@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2019 Tobias Raatiniemi
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package me.raatiniemi.sonar.core;
+
+import me.raatiniemi.sonar.core.xml.XmlTokenizer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class XmlTokenizerTest {
+    @Nonnull
+    private static XmlTokenizer tokenize(@Nonnull String document) {
+        return XmlTokenizer.create(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void nextElement_withElements() throws IOException {
+        XmlTokenizer tokenizer = tokenize("<modules>\n  <module name=\"a\">\n    <file/>\n  </module>\n</modules>");
+
+        assertTrue(tokenizer.nextElement());
+        assertEquals("modules", tokenizer.getName());
+        assertFalse(tokenizer.isEmptyElement());
+        assertTrue(tokenizer.nextElement());
+        assertEquals("module", tokenizer.getName());
+        assertEquals(1, tokenizer.getAttributeCount());
+        assertEquals("name", tokenizer.getAttributeName(0));
+        assertEquals("a", tokenizer.getAttributeValue(0));
+        assertTrue(tokenizer.nextElement());
+        assertEquals("file", tokenizer.getName());
+        assertTrue(tokenizer.isEmptyElement());
+        assertEquals(0, tokenizer.getAttributeCount());
+        assertFalse(tokenizer.nextElement());
+    }
+
+    @Test
+    public void nextElement_withMatchingName() throws IOException {
+        XmlTokenizer tokenizer = tokenize("<modules><module/><file value=\"1\"/><module/><file value=\"2\"/></modules>");
+
+        assertTrue(tokenizer.nextElement("file"));
+        assertEquals("1", tokenizer.getAttribute("value"));
+        assertTrue(tokenizer.nextElement("file"));
+        assertEquals("2", tokenizer.getAttribute("value"));
+        assertFalse(tokenizer.nextElement("file"));
+    }
+
+    @Test
+    public void nextElement_withSkippedContent() throws IOException {
+        XmlTokenizer tokenizer = tokenize("\uFEFF<?xml version=\"1.0\"?>\n<?target a?b?>"
+                + "<!-- <comment/> --->\n<modules><![CDATA[<cdata/>]]]></modules>");
+
+        assertTrue(tokenizer.nextElement());
+        assertEquals("modules", tokenizer.getName());
+        assertFalse(tokenizer.nextElement());
+    }
+
+    @Test
+    public void nextElement_withLargeDocument() throws IOException {
+        StringBuilder document = new StringBuilder("<modules>");
+        for (int i = 0; i < 10000; i++) {
+            document.append("<file filename=\"src/file-").append(i).append(".m\" value=\"").append(i).append("\"/>\n");
+        }
+        document.append("</modules>");
+        XmlTokenizer tokenizer = tokenize(document.toString());
+
+        int numberOfFiles = 0;
+        while (tokenizer.nextElement("file")) {
+            assertEquals(String.valueOf(numberOfFiles), tokenizer.getAttribute("value"));
+            numberOfFiles++;
+        }
+
+        assertEquals(10000, numberOfFiles);
+    }
+
+    @Test
+    public void getAttribute_withQuotesAndWhitespace() throws IOException {
+        XmlTokenizer tokenizer = tokenize("<file a = 'x > \"y\"'\n\tb=\"1\r\n2\tz\" />");
+
+        assertTrue(tokenizer.nextElement());
+        assertEquals("x > \"y\"", tokenizer.getAttribute("a"));
+        assertEquals("1 2 z", tokenizer.getAttribute("b"));
+        assertEquals("", tokenizer.getAttribute("c"));
+    }
+
+    @Test
+    public void getAttribute_withReferences() throws IOException {
+        XmlTokenizer tokenizer = tokenize("<file \u00e5=\"&lt;&gt;&amp;&quot;&apos;&#65;&#x1F600;\u00e4\"/>");
+
+        assertTrue(tokenizer.nextElement());
+        assertEquals("<>&\"'A\uD83D\uDE00\u00e4", tokenizer.getAttribute("\u00e5"));
+    }
+
+    @Test(expected = IOException.class)
+    public void getAttribute_withUndefinedEntity() throws IOException {
+        XmlTokenizer tokenizer = tokenize("<file value=\"&name;\"/>");
+
+        assertTrue(tokenizer.nextElement());
+        tokenizer.getAttribute("value");
+    }
+
+    @Test(expected = IOException.class)
+    public void nextElement_withDocumentType() throws IOException {
+        tokenize("<!DOCTYPE modules SYSTEM \"modules.dtd\"><modules/>").nextElement();
+    }
+
+    @Test(expected = IOException.class)
+    public void nextElement_withUnsupportedEncoding() throws IOException {
+        tokenize("<?xml version=\"1.0\" encoding=\"UTF-16\"?><modules/>").nextElement();
+    }
+
+    @Test(expected = IOException.class)
+    public void nextElement_withoutElement() throws IOException {
+        tokenize("<!-- empty -->").nextElement();
+    }
+
+    @Test(expected = IOException.class)
+    public void nextElement_withUnterminatedTag() throws IOException {
+        tokenize("<modules value=\"1\"").nextElement();
+    }
+
+    @Test(expected = IOException.class)
+    public void nextElement_withAttributeWithoutValue() throws IOException {
+        tokenize("<modules value />").nextElement();
+    }
+
+    @Test
+    public void nextElement_withFragmentedInput() throws IOException {
+        byte[] document = "<modules><file value=\"\u00e4\"/></modules>".getBytes(StandardCharsets.UTF_8);
+        InputStream input = new ByteArrayInputStream(document) {
+            @Override
+            public synchronized int read(@Nonnull byte[] bytes, int offset, int length) {
+                return super.read(bytes, offset, Math.min(length, 1));
+            }
+        };
+        XmlTokenizer tokenizer = XmlTokenizer.create(input);
+
+        assertTrue(tokenizer.nextElement("file"));
+        assertEquals("\u00e4", tokenizer.getAttribute("value"));
+    }
+}